@@ -0,0 +1,50 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BattleEstimatorTest {
+
+    private static final Map<UnitType, Integer> FIRST = Map.of(UnitType.FOOTMAN, 5, UnitType.PEASANT, 3);
+    private static final Map<UnitType, Integer> SECOND = Map.of(UnitType.FOOTMAN, 6);
+
+    @Test
+    void poolSizeDoesNotChangeTheEstimate(){
+        for (double precision : new double[]{0, 0.05}) {
+            BattleEstimator.Estimate expected = estimate(1, precision);
+            for (int threads : new int[]{2, 3, 8}) {
+                BattleEstimator.Estimate estimate = estimate(threads, precision);
+                String context = threads + " threads, precision " + precision;
+                assertEquals(expected.getSamples(), estimate.getSamples(), context);
+                assertEquals(expected.getFirstWinProbability(), estimate.getFirstWinProbability(), context);
+                assertEquals(expected.getSecondWinProbability(), estimate.getSecondWinProbability(), context);
+                assertEquals(expected.getDrawProbability(), estimate.getDrawProbability(), context);
+                assertEquals(expected.getExpectedFirstSurvivors(), estimate.getExpectedFirstSurvivors(), context);
+                assertEquals(expected.getExpectedSecondSurvivors(), estimate.getExpectedSecondSurvivors(), context);
+            }
+        }
+    }
+
+    @Test
+    void samplingStopsOncePreciseEnough(){
+        BattleEstimator.Estimate estimate = estimate(2, 0.05);
+        assertTrue(estimate.getSamples() < 1000);
+        assertTrue(estimate.getFirstWinUpperBound() - estimate.getFirstWinLowerBound() <= 2 * 0.05 + 1e-9);
+        assertEquals(1000, estimate(2, 0).getSamples());
+    }
+
+    private static BattleEstimator.Estimate estimate(int threads, double precision){
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return new BattleEstimator(pool, precision, 1000).estimate(FIRST, SECOND, 21);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BuildPlannerTest {
+
+    @Test
+    void peasantsPaidForAreTrainedOneAfterTheOther(){
+        BuildPlan plan = new BuildPlanner(Set.of(), 2).plan(2 * UnitType.PEASANT.goldCost, 0, 2, 0, 0, 0);
+        assertNotNull(plan);
+        assertEquals(List.of(BuildPlan.Step.TRAIN_PEASANT, BuildPlan.Step.TRAIN_PEASANT), plan.getSteps());
+        assertEquals(2 * UnitType.PEASANT.buildTime, plan.getDuration());
+    }
+
+    @Test
+    void everyIdlePeasantButTheBuilderMinesFirst(){
+        BuildPlan plan = new BuildPlanner(EnumSet.of(UnitType.LUMBERMILL), 0).plan(0, 0, 0, 0, 0, 3);
+        assertNotNull(plan);
+        assertEquals(List.of(BuildPlan.Step.MINE, BuildPlan.Step.MINE, BuildPlan.Step.BUILD_LUMBERMILL), plan.getSteps());
+        // two miners bring the gold of the lumbermill in whole trips
+        long trips = UnitType.LUMBERMILL.goldCost / (2 * Peasant.HARVEST_AMOUNT);
+        assertEquals(trips * Peasant.HARVEST_WAIT_TIME, plan.getDuration());
+    }
+
+    @Test
+    void trainingWaitsForTheFarmBuiltFirst(){
+        BuildPlan plan = new BuildPlanner(EnumSet.of(UnitType.FARM), 1)
+                .plan(UnitType.FARM.goldCost + UnitType.PEASANT.goldCost, UnitType.FARM.woodCost, 0, 0, 0, 1);
+        assertNotNull(plan);
+        assertEquals(List.of(BuildPlan.Step.BUILD_FARM, BuildPlan.Step.TRAIN_PEASANT), plan.getSteps());
+        assertEquals(UnitType.PEASANT.buildTime, plan.getDuration());
+    }
+
+    @Test
+    void unreachableGoalHasNoPlan(){
+        // nobody harvests the missing gold
+        assertNull(new BuildPlanner(EnumSet.of(UnitType.LUMBERMILL), 0).plan(0, 0, 0, 0, 0, 1));
+        // nobody is free to build
+        assertNull(new BuildPlanner(EnumSet.of(UnitType.FARM), 0).plan(1000, 1000, 0, 2, 0, 0));
+        // no food for the peasant and no farm to make room
+        assertNull(new BuildPlanner(Set.of(), 1).plan(1000, 0, 0, 1, 0, 0));
+    }
+
+}
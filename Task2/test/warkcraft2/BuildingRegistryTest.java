@@ -0,0 +1,77 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BuildingRegistryTest {
+
+    private final Base base = Base.createEmptyBase("Test", new DiscreteEventClock(), ExecutionMode.POOL, 1);
+    private final BuildingRegistry registry = new BuildingRegistry();
+
+    @AfterEach
+    void tearDown(){
+        base.close();
+    }
+
+    @Test
+    void waiterRunsOnceTheRequiredBuildingsAreDone(){
+        AtomicInteger runs = new AtomicInteger();
+        registry.whenBuilt(UnitType.FARM, 2, runs::incrementAndGet);
+
+        registry.add(Building.restoreBuilding(UnitType.FARM, base));
+        registry.add(Building.restoreBuilding(UnitType.LUMBERMILL, base));
+        assertEquals(0, runs.get());
+
+        registry.add(Building.restoreBuilding(UnitType.FARM, base));
+        assertEquals(1, runs.get());
+        registry.add(Building.restoreBuilding(UnitType.FARM, base));
+        assertEquals(1, runs.get());
+        assertEquals(3, registry.count(UnitType.FARM));
+    }
+
+    @Test
+    void waiterOfExistingBuildingsRunsRightAway(){
+        registry.add(Building.restoreBuilding(UnitType.BARRACKS, base));
+        AtomicInteger runs = new AtomicInteger();
+        registry.whenBuilt(UnitType.BARRACKS, 1, runs::incrementAndGet);
+        registry.whenBuilt(UnitType.BARRACKS, 0, runs::incrementAndGet);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void concurrentlyCompletedBuildingsRunEveryWaiterOnce() throws InterruptedException {
+        int builders = 4;
+        int farms = 50;
+        List<AtomicInteger> runs = new ArrayList<>();
+        for (int required = 1; required <= builders * farms; required++) {
+            AtomicInteger waiterRuns = new AtomicInteger();
+            runs.add(waiterRuns);
+            registry.whenBuilt(UnitType.FARM, required, waiterRuns::incrementAndGet);
+        }
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < builders; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < farms; i++) {
+                    registry.add(Building.restoreBuilding(UnitType.FARM, base));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(builders * farms, registry.count(UnitType.FARM));
+        for (int i = 0; i < runs.size(); i++) {
+            assertEquals(1, runs.get(i).get(), "waiter for " + (i + 1) + " farms");
+        }
+    }
+
+}
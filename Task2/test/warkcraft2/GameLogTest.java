@@ -0,0 +1,80 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GameLogTest {
+
+    private static final int THREADS = 4;
+
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    private GameLog.Level level;
+
+    @BeforeEach
+    void setUp(){
+        level = GameLog.getLevel();
+        GameLog.setLevel(GameLog.Level.DEBUG);
+        GameLog.setOut(new PrintStream(captured, false, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void tearDown(){
+        GameLog.setOut(System.out);
+        GameLog.setLevel(level);
+    }
+
+    @Test
+    void fullRingLosesNoEvents() throws InterruptedException {
+        // every producer alone wraps around the ring
+        int events = GameLog.CAPACITY + 1000;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String subject = "ring-" + t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < events; i++) {
+                    GameLog.debug(subject, "event", i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        GameLog.flush();
+
+        int[] next = new int[THREADS];
+        for (String line : captured.toString(StandardCharsets.UTF_8).split(System.lineSeparator())) {
+            String[] parts = line.split(" ");
+            if(parts.length != 3 || !parts[0].startsWith("ring-"))
+                continue;
+            int thread = Integer.parseInt(parts[0].substring("ring-".length()));
+            // the events of a thread come out once each, in the order they were logged
+            assertEquals(next[thread], Integer.parseInt(parts[2]), "event of " + parts[0]);
+            next[thread]++;
+        }
+        for (int t = 0; t < THREADS; t++) {
+            assertEquals(events, next[t], "events of ring-" + t);
+        }
+    }
+
+    @Test
+    void eventsBelowTheLevelAreDropped(){
+        GameLog.setLevel(GameLog.Level.INFO);
+        GameLog.debug("level", "hidden");
+        GameLog.info("level", "shown");
+        GameLog.flush();
+        assertEquals("level shown" + System.lineSeparator(), captured.toString(StandardCharsets.UTF_8));
+    }
+
+}
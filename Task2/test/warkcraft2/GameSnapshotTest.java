@@ -0,0 +1,64 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameSnapshotTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void restoredMatchIsWrittenTheSame() throws IOException {
+        for (long time : new long[]{5_000, 15_000}) {
+            Match match = new Match("Horde", "Allience", new DiscreteEventClock(), ExecutionMode.PLATFORM, "threaded", 3);
+            assertFalse(match.playUntil(time));
+            Path written = folder.resolve("written-" + time);
+            GameSnapshot.write(match, written);
+
+            Match restored = GameSnapshot.restore(written, new DiscreteEventClock(), ExecutionMode.PLATFORM, "threaded", 3);
+            assertEquals(time, restored.getTime());
+            Path rewritten = folder.resolve("rewritten-" + time);
+            GameSnapshot.write(restored, rewritten);
+            assertArrayEquals(Files.readAllBytes(written), Files.readAllBytes(rewritten), "snapshot at " + time);
+            close(match);
+            close(restored);
+        }
+    }
+
+    @Test
+    void snapshotDoesNotChangeTheMatch() throws IOException {
+        Match.Result played = MatchTest.play("threaded", 3);
+        for (long time : new long[]{5_000, 25_000}) {
+            Match match = new Match("Horde", "Allience", new DiscreteEventClock(), ExecutionMode.PLATFORM, "threaded", 3);
+            match.playUntil(time);
+            GameSnapshot.write(match, folder.resolve("snapshot-" + time));
+            Match.Result result = match.play();
+            assertEquals(played.getWinner(), result.getWinner(), "snapshot at " + time);
+            assertEquals(played.getDuration(), result.getDuration(), "snapshot at " + time);
+            assertEquals(played.getFirstArmy(), result.getFirstArmy(), "snapshot at " + time);
+            assertEquals(played.getSecondArmy(), result.getSecondArmy(), "snapshot at " + time);
+        }
+    }
+
+    @Test
+    void otherFilesAreRejected() throws IOException {
+        Path file = Files.write(folder.resolve("other"), new byte[64]);
+        assertThrows(IOException.class, () -> GameSnapshot.restore(file, new DiscreteEventClock(), ExecutionMode.PLATFORM, "threaded", 3));
+    }
+
+    private static void close(Match match){
+        match.getFirst().close();
+        match.getSecond().close();
+    }
+
+}
@@ -0,0 +1,108 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void replayEndsInTheStateOfTheMatch() throws IOException {
+        Path file = folder.resolve("match.journal");
+        Recorded recorded = record(file, 9);
+        assertEquals(List.of("Horde", "Allience"), JournalReplay.readBases(file));
+
+        Totals totals = new Totals(JournalReplay.readBases(file));
+        int records = JournalReplay.replay(file, totals);
+        assertTrue(records > 0);
+        assertTrue(totals.summary.getAttacks(0) + totals.summary.getAttacks(1) > 0);
+        for (int base = 0; base < 2; base++) {
+            assertArrayEquals(recorded.end[base], totals.stock(base, recorded.start[base]), "stock of base " + base);
+        }
+        int loser = recorded.result.getWinner().equals("Horde") ? 1 : 0;
+        assertTrue(totals.summary.getDeaths(loser) > 0);
+    }
+
+    @Test
+    void sameSeedRecordsTheSameJournal() throws IOException {
+        Path first = folder.resolve("first.journal");
+        Path second = folder.resolve("second.journal");
+        record(first, 4);
+        record(second, 4);
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+    }
+
+    private static Recorded record(Path file, long seed) throws IOException {
+        DiscreteEventClock clock = new DiscreteEventClock();
+        Match match = new Match("Horde", "Allience", clock, ExecutionMode.PLATFORM, "threaded", seed);
+        Recorded recorded = new Recorded();
+        try (Journal journal = new Journal(file, clock, List.of("Horde", "Allience"))) {
+            match.setJournal(journal);
+            recorded.start = new int[][]{stock(match.getFirst()), stock(match.getSecond())};
+            recorded.result = match.play();
+            recorded.end = new int[][]{stock(match.getFirst()), stock(match.getSecond())};
+        }
+        return recorded;
+    }
+
+    private static int[] stock(Base base){
+        Resources resources = base.getResources();
+        return new int[]{resources.getGold(), resources.getWood(), resources.getCapacity()};
+    }
+
+    private static final class Recorded {
+        private int[][] start;
+        private int[][] end;
+        private Match.Result result;
+    }
+
+    /**
+     * Adds up the replayed changes of the stock of every base, the other records go to the summary.
+     */
+    private static final class Totals implements JournalReplay.Listener {
+        private final JournalReplay.Summary summary;
+        private final int[][] changes;
+
+        private Totals(List<String> bases){
+            this.summary = new JournalReplay.Summary(bases);
+            this.changes = new int[bases.size()][3];
+        }
+
+        @Override
+        public void attack(long time, int base, int unit, int targetBase, int target, int damage){
+            summary.attack(time, base, unit, targetBase, target, damage);
+        }
+
+        @Override
+        public void death(long time, int base, int unit, UnitType unitType){
+            summary.death(time, base, unit, unitType);
+        }
+
+        @Override
+        public void resources(long time, int base, int gold, int wood, int capacity){
+            changes[base][0] += gold;
+            changes[base][1] += wood;
+            changes[base][2] += capacity;
+        }
+
+        private int[] stock(int base, int[] start){
+            int[] stock = start.clone();
+            for (int i = 0; i < stock.length; i++) {
+                stock[i] += changes[base][i];
+            }
+            return stock;
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MassBattleTest {
+
+    private static final int UNITS = 400;
+
+    @Test
+    void poolFightsTheSameBattleAsTheCallingThread(){
+        MassBattle sequential = battle(11);
+        int winner = sequential.run();
+        for (int threads : new int[]{1, 2, 4, 7}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                MassBattle parallel = battle(11);
+                assertEquals(winner, parallel.run(pool), "winner on " + threads + " threads");
+                assertEquals(sequential.getRounds(), parallel.getRounds(), "rounds on " + threads + " threads");
+                assertEquals(sequential.getSurvivors(MassBattle.FIRST), parallel.getSurvivors(MassBattle.FIRST));
+                assertEquals(sequential.getSurvivors(MassBattle.SECOND), parallel.getSurvivors(MassBattle.SECOND));
+                for (int unit = 0; unit < 2 * UNITS; unit++) {
+                    assertEquals(sequential.getHealth(unit), parallel.getHealth(unit), "health of " + unit + " on " + threads + " threads");
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static MassBattle battle(long seed){
+        MassBattle battle = new MassBattle(seed);
+        for (int unit = 0; unit < UNITS; unit++) {
+            battle.addUnit(MassBattle.FIRST, 60, 2, 12);
+            battle.addUnit(MassBattle.SECOND, 40 + unit % 30, 1 + unit % 3, 10 + unit % 5);
+        }
+        return battle;
+    }
+
+}
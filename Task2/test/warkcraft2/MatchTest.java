@@ -0,0 +1,36 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MatchTest {
+
+    @Test
+    void sameSeedPlaysTheSameMatch(){
+        for (String battleMode : new String[]{"threaded", "mass"}) {
+            Match.Result first = play(battleMode, 7);
+            Match.Result second = play(battleMode, 7);
+            assertEquals(first.getWinner(), second.getWinner(), battleMode);
+            assertEquals(first.getDuration(), second.getDuration(), battleMode);
+            assertEquals(first.getFirstArmy(), second.getFirstArmy(), battleMode);
+            assertEquals(first.getSecondArmy(), second.getSecondArmy(), battleMode);
+        }
+    }
+
+    @Test
+    void offHeapStorageFightsTheSameMassBattle(){
+        Match.Result heap = play("mass", 7);
+        Match match = new Match("Horde", "Allience", new DiscreteEventClock(), ExecutionMode.PLATFORM, "mass", 7);
+        match.setBattleStorage("offheap");
+        Match.Result offHeap = match.play();
+        assertEquals(heap.getWinner(), offHeap.getWinner());
+        assertEquals(heap.getFirstArmy(), offHeap.getFirstArmy());
+        assertEquals(heap.getSecondArmy(), offHeap.getSecondArmy());
+    }
+
+    static Match.Result play(String battleMode, long seed){
+        return new Match("Horde", "Allience", new DiscreteEventClock(), ExecutionMode.PLATFORM, battleMode, seed).play();
+    }
+
+}
@@ -0,0 +1,109 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PeasantPoolTest {
+
+    private final Base base = Base.createEmptyBase("Test", new DiscreteEventClock(), ExecutionMode.POOL, 1);
+    private final PeasantPool pool = new PeasantPool();
+
+    @AfterEach
+    void tearDown(){
+        base.close();
+    }
+
+    @Test
+    void peasantEntersThePoolOnce(){
+        Peasant peasant = Peasant.createPeasant(base);
+        assertTrue(pool.release(peasant));
+        assertFalse(pool.release(peasant));
+        assertEquals(1, pool.size());
+        assertSame(peasant, pool.tryAcquire());
+        assertNull(pool.tryAcquire());
+        assertEquals(0, pool.size());
+    }
+
+    @Test
+    void acquireTimesOutWithoutIdlePeasants() throws InterruptedException {
+        long start = System.nanoTime();
+        assertNull(pool.acquire(50, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void acquireWaitsForAPeasantToBecomeIdle() throws Exception {
+        Peasant peasant = Peasant.createPeasant(base);
+        CompletableFuture<Peasant> acquired = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(acquired.isDone());
+        pool.release(peasant);
+        assertSame(peasant, acquired.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void concurrentClaimsNeverShareAPeasant() throws InterruptedException {
+        List<Peasant> peasants = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Peasant peasant = Peasant.createPeasant(base);
+            peasants.add(peasant);
+            pool.release(peasant);
+        }
+        Set<Peasant> claimed = new HashSet<>();
+        AtomicInteger claims = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                Peasant peasant;
+                while ((peasant = pool.tryAcquire()) != null) {
+                    claims.incrementAndGet();
+                    synchronized (claimed) {
+                        claimed.add(peasant);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(peasants.size(), claims.get());
+        assertEquals(new HashSet<>(peasants), claimed);
+    }
+
+    @Test
+    void waiterRunsOnceWhenAPeasantBecomesIdle(){
+        AtomicInteger runs = new AtomicInteger();
+        pool.whenIdle(runs::incrementAndGet);
+        assertEquals(0, runs.get());
+        pool.release(Peasant.createPeasant(base));
+        pool.release(Peasant.createPeasant(base));
+        assertEquals(1, runs.get());
+
+        pool.whenIdle(runs::incrementAndGet);
+        assertEquals(2, runs.get());
+    }
+
+}
@@ -0,0 +1,51 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PeasantTest {
+
+    private static final int TRIPS = 10;
+
+    private final DiscreteEventClock clock = new DiscreteEventClock();
+    private final Base base = Base.createEmptyBase("Test", clock, ExecutionMode.POOL, 1);
+    private final Resources resources = base.getResources();
+
+    @AfterEach
+    void tearDown(){
+        base.close();
+    }
+
+    @Test
+    void restartedHarvestRunsOnce(){
+        Peasant peasant = Peasant.createPeasant(base);
+        int gold = resources.getGold();
+        peasant.startMining();
+        clock.runUntil(new CompletableFuture<>(), Peasant.HARVEST_WAIT_TIME / 2);
+        peasant.stopHarvesting();
+        peasant.startMining();
+
+        clock.runUntil(new CompletableFuture<>(), Peasant.HARVEST_WAIT_TIME / 2 + TRIPS * Peasant.HARVEST_WAIT_TIME);
+        resources.flushIncome();
+        assertEquals(gold + TRIPS * Peasant.HARVEST_AMOUNT, resources.getGold());
+    }
+
+    @Test
+    void switchedHarvestDeliversOnlyTheNewResource(){
+        Peasant peasant = Peasant.createPeasant(base);
+        int gold = resources.getGold();
+        peasant.startMining();
+        peasant.stopHarvesting();
+        peasant.startCuttingWood();
+
+        clock.runUntil(new CompletableFuture<>(), TRIPS * Peasant.HARVEST_WAIT_TIME);
+        resources.flushIncome();
+        assertEquals(gold, resources.getGold());
+        assertEquals(TRIPS * Peasant.HARVEST_AMOUNT, resources.getWood());
+    }
+
+}
@@ -0,0 +1,67 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersonnelTest {
+
+    private static final int THREADS = 8;
+
+    private final Base base = Base.createEmptyBase("Test", new DiscreteEventClock(), ExecutionMode.POOL, 1);
+
+    @AfterEach
+    void tearDown(){
+        base.close();
+    }
+
+    @Test
+    void unitHitConcurrentlyDiesExactlyOnce() throws Exception {
+        List<Footman> footmen = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            footmen.add(Footman.createFootman(base));
+        }
+        int hits = Footman.HEALTH;
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                // together the threads hit every footman several times past its death
+                for (int hit = 0; hit < hits; hit++) {
+                    for (Footman footman : footmen) {
+                        footman.loseHealth(1);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        base.reapDeaths();
+
+        for (Footman footman : footmen) {
+            assertEquals(hits - THREADS * hits, footman.getHealth());
+        }
+        assertEquals(footmen.size(), base.getMetrics().getDeaths());
+        // a fallen unit hit once more is not signalled again
+        footmen.get(0).loseHealth(1);
+        base.reapDeaths();
+        assertEquals(footmen.size(), base.getMetrics().getDeaths());
+        assertTrue(footmen.get(0).getHealth() < 0);
+    }
+
+}
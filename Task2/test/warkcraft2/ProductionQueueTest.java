@@ -0,0 +1,76 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProductionQueueTest {
+
+    private final DiscreteEventClock clock = new DiscreteEventClock();
+    private final Base base = Base.createEmptyBase("Test", clock, ExecutionMode.POOL, 1);
+    private final Resources resources = base.getResources();
+
+    @AfterEach
+    void tearDown(){
+        base.close();
+    }
+
+    @Test
+    void ordersAreTrainedOneAfterTheOther(){
+        ProductionQueue queue = new ProductionQueue(base, 5);
+        int gold = resources.getGold();
+        CompletableFuture<Peasant> first = queue.enqueue(UnitType.PEASANT, () -> Peasant.createPeasant(base));
+        CompletableFuture<Peasant> second = queue.enqueue(UnitType.PEASANT, () -> Peasant.createPeasant(base));
+        assertEquals(2, queue.getPending());
+
+        clock.runUntil(first);
+        assertEquals(UnitType.PEASANT.buildTime, clock.now());
+        assertFalse(second.isDone());
+        clock.runUntil(second);
+        assertEquals(2 * UnitType.PEASANT.buildTime, clock.now());
+        assertEquals(0, queue.getPending());
+        assertEquals(gold - 2 * UnitType.PEASANT.goldCost, resources.getGold());
+        assertEquals(2 * UnitType.PEASANT.foodCost, resources.getCapacity());
+    }
+
+    @Test
+    void orderWaitsForItsResources(){
+        ProductionQueue queue = new ProductionQueue(base, 5);
+        Resources.Reservation everything = resources.reserve(resources.getGold(), 0, 0);
+        assertNotNull(everything);
+        everything.commit();
+        CompletableFuture<Peasant> trained = queue.enqueue(UnitType.PEASANT, () -> Peasant.createPeasant(base));
+        assertFalse(trained.isDone());
+        assertEquals(1, queue.getPending());
+        // nothing has been reserved for the waiting order
+        assertEquals(0, resources.getCapacity());
+
+        long paid = 500;
+        clock.schedule(paid, () -> {
+            resources.addGold(UnitType.PEASANT.goldCost);
+            resources.flushIncome();
+        });
+        clock.runUntil(trained);
+        assertEquals(paid + UnitType.PEASANT.buildTime, clock.now());
+        assertEquals(0, resources.getGold());
+        assertEquals(UnitType.PEASANT.foodCost, resources.getCapacity());
+    }
+
+    @Test
+    void fullQueueRefusesOrders(){
+        ProductionQueue queue = new ProductionQueue(base, 1);
+        resources.reserve(resources.getGold(), 0, 0).commit();
+        // the first order waits for gold at the head of the queue
+        assertNotNull(queue.enqueue(UnitType.PEASANT, () -> Peasant.createPeasant(base)));
+        assertNull(queue.enqueue(UnitType.PEASANT, () -> Peasant.createPeasant(base)));
+        assertEquals(1, queue.getPending());
+        assertEquals(0, resources.getGold());
+    }
+
+}
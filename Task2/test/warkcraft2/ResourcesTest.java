@@ -0,0 +1,186 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourcesTest {
+
+    private static final int[] GOLD = {0, 1, -1, 375, -375, Resources.MAX_GOLD, Resources.MIN_GOLD, Resources.MAX_GOLD - 1, Resources.MIN_GOLD + 1};
+    private static final int[] WOOD = {0, 1, -1, 375, -375, Resources.MAX_WOOD, Resources.MIN_WOOD, Resources.MAX_WOOD - 1, Resources.MIN_WOOD + 1};
+    private static final int[] CAPACITY = {0, 1, -1, 25, Resources.MAX_CAPACITY, Resources.MIN_CAPACITY};
+
+    @Test
+    void packKeepsEveryFieldOverItsWholeRange(){
+        for (int gold : GOLD) {
+            for (int wood : WOOD) {
+                for (int capacity : CAPACITY) {
+                    long stock = Resources.pack(gold, wood, capacity);
+                    String packed = gold + ", " + wood + ", " + capacity;
+                    assertEquals(gold, Resources.gold(stock), "gold of " + packed);
+                    assertEquals(wood, Resources.wood(stock), "wood of " + packed);
+                    assertEquals(capacity, Resources.capacity(stock), "capacity of " + packed);
+                }
+            }
+        }
+    }
+
+    @Test
+    void packRejectsValuesOutOfRange(){
+        assertThrows(ArithmeticException.class, () -> Resources.pack(Resources.MAX_GOLD + 1, 0, 0));
+        assertThrows(ArithmeticException.class, () -> Resources.pack(Resources.MIN_GOLD - 1, 0, 0));
+        assertThrows(ArithmeticException.class, () -> Resources.pack(0, Resources.MAX_WOOD + 1, 0));
+        assertThrows(ArithmeticException.class, () -> Resources.pack(0, Resources.MIN_WOOD - 1, 0));
+        assertThrows(ArithmeticException.class, () -> Resources.pack(0, 0, Resources.MAX_CAPACITY + 1));
+        assertThrows(ArithmeticException.class, () -> Resources.pack(0, 0, Resources.MIN_CAPACITY - 1));
+    }
+
+    @Test
+    void fittingStopsAtTheLimits(){
+        assertEquals(10, Resources.fitting(0, 10, Resources.MIN_GOLD, Resources.MAX_GOLD));
+        assertEquals(0, Resources.fitting(Resources.MAX_GOLD, 10, Resources.MIN_GOLD, Resources.MAX_GOLD));
+        assertEquals(1, Resources.fitting(Resources.MAX_GOLD - 1, 10, Resources.MIN_GOLD, Resources.MAX_GOLD));
+        assertEquals(-1, Resources.fitting(Resources.MIN_GOLD + 1, -10, Resources.MIN_GOLD, Resources.MAX_GOLD));
+        assertEquals(Resources.MAX_GOLD, Resources.fitting(0, Long.MAX_VALUE, Resources.MIN_GOLD, Resources.MAX_GOLD));
+        assertEquals(Resources.MIN_GOLD, Resources.fitting(0, Long.MIN_VALUE, Resources.MIN_GOLD, Resources.MAX_GOLD));
+    }
+
+    @Test
+    void incomeNotFittingIntoTheStockIsKept(){
+        Resources resources = new Resources(false);
+        int start = resources.getGold();
+        resources.addGold(Resources.MAX_GOLD + 1000);
+        resources.addWood(5);
+        resources.flushIncome();
+        assertEquals(Resources.MAX_GOLD, resources.getGold());
+        assertEquals(5, resources.getWood());
+
+        resources.removeCost(2000, 0);
+        resources.flushIncome();
+        assertEquals(Resources.MAX_GOLD - 2000 + 1000 + start, resources.getGold());
+        assertEquals(Resources.MAX_GOLD + 1000, resources.getGoldHarvested());
+    }
+
+    @Test
+    void farmsStopAtTheLargestCapacity(){
+        Resources resources = new Resources(false);
+        for (int i = 0; i < Resources.MAX_CAPACITY / Resources.FARM_CAPACITY + 10; i++) {
+            resources.farmBuilt();
+        }
+        assertEquals(Resources.MAX_CAPACITY, resources.getCapacityLimit());
+        assertNotNull(resources.reserve(0, 0, Resources.MAX_CAPACITY));
+        assertNull(resources.reserve(0, 0, 1));
+    }
+
+    /**
+     * Trainers reserve exactly all the gold and food between them, while others keep asking for more gold
+     * than there is; as a reservation is all or nothing, the failing ones never take the trainers' food.
+     */
+    @Test
+    void reservationFailsOnlyWithoutEnoughResources() throws InterruptedException {
+        Resources resources = new Resources(false);
+        int trainers = resources.getCapacityLimit() / UnitType.PEASANT.foodCost;
+        resources.addGold(trainers * UnitType.PEASANT.goldCost - resources.getGold());
+        resources.flushIncome();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger greedyReservations = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < trainers; i++) {
+            threads.add(new Thread(() -> {
+                for (int round = 0; round < 20_000; round++) {
+                    Resources.Reservation reservation = resources.reserve(UnitType.PEASANT.goldCost, UnitType.PEASANT.woodCost, UnitType.PEASANT.foodCost);
+                    if(reservation == null)
+                        failures.incrementAndGet();
+                    else
+                        reservation.rollback();
+                }
+            }));
+        }
+        for (int i = 0; i < 2; i++) {
+            threads.add(new Thread(() -> {
+                for (int round = 0; round < 20_000; round++) {
+                    if(resources.reserve(1_000_000, 0, UnitType.PEASANT.foodCost) != null)
+                        greedyReservations.incrementAndGet();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failures.get());
+        assertEquals(0, greedyReservations.get());
+        assertEquals(trainers * UnitType.PEASANT.goldCost, resources.getGold());
+        assertEquals(0, resources.getCapacity());
+    }
+
+    @Test
+    void failedReservationTakesNothing(){
+        Resources resources = new Resources(false);
+        int gold = resources.getGold();
+        assertNull(resources.reserve(gold + 1, 0, 1));
+        assertEquals(0, resources.getCapacity());
+
+        Resources.Reservation reservation = resources.reserve(gold, 0, 1);
+        assertNotNull(reservation);
+        assertEquals(0, resources.getGold());
+        assertEquals(1, resources.getCapacity());
+        reservation.rollback();
+        assertEquals(gold, resources.getGold());
+        assertEquals(0, resources.getCapacity());
+    }
+
+    @Test
+    void decisionsSeeTheIncomeHarvestedSoFar(){
+        Resources resources = new Resources();
+        int gold = resources.getGold();
+        resources.addGold(100);
+        resources.addWood(10);
+        assertEquals(gold, resources.getGold());
+        assertTrue(resources.canBuild(gold + 100, 10));
+        assertTrue(resources.canTrain(gold + 100, 10, 1));
+        assertNotNull(resources.reserve(gold + 100, 10, 1));
+        assertEquals(0, resources.getGold());
+    }
+
+    @Test
+    void waiterRunsOnceTheIncomeIsFlushed(){
+        Resources resources = new Resources();
+        int gold = resources.getGold();
+        AtomicInteger runs = new AtomicInteger();
+        resources.whenAvailable(gold + 100, 10, 0, runs::incrementAndGet);
+
+        resources.addGold(120);
+        resources.addWood(10);
+        assertEquals(0, runs.get());
+        resources.flushIncome();
+        assertEquals(1, runs.get());
+        assertEquals(gold + 120, resources.getGold());
+    }
+
+    @Test
+    void incomeWakesTheWaitersWhenFlushedOnRead(){
+        Resources resources = new Resources(true);
+        int gold = resources.getGold();
+        AtomicInteger runs = new AtomicInteger();
+        resources.whenAvailable(gold + 100, 10, 0, runs::incrementAndGet);
+
+        resources.addGold(60);
+        resources.addGold(60);
+        assertEquals(0, runs.get());
+        resources.addWood(10);
+        assertEquals(1, runs.get());
+        assertEquals(gold + 120, resources.getGold());
+    }
+
+}
@@ -0,0 +1,89 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RosterTest {
+
+    private final Base base = Base.createEmptyBase("Test", new DiscreteEventClock(), ExecutionMode.POOL, 1);
+
+    @AfterEach
+    void tearDown(){
+        base.close();
+    }
+
+    @Test
+    void removedSlotIsTakenByTheLastUnit(){
+        Roster<Personnel> army = Roster.army();
+        Footman first = Footman.createFootman(base);
+        Footman second = Footman.createFootman(base);
+        Footman third = Footman.createFootman(base);
+        army.addAll(List.of(first, second, third));
+
+        assertTrue(army.remove(first));
+        assertEquals(-1, first.getArmySlot());
+        assertEquals(0, third.getArmySlot());
+        assertEquals(1, second.getArmySlot());
+        assertEquals(List.of(third, second), army.snapshot());
+        assertFalse(army.remove(first));
+    }
+
+    @Test
+    void freedSlotIsReused(){
+        Roster<Personnel> army = Roster.army();
+        Footman first = Footman.createFootman(base);
+        Footman second = Footman.createFootman(base);
+        army.add(first);
+        army.add(second);
+        army.remove(second);
+
+        Footman added = Footman.createFootman(base);
+        army.add(added);
+        assertEquals(1, added.getArmySlot());
+        army.add(second);
+        assertEquals(2, second.getArmySlot());
+        assertEquals(List.of(first, added, second), army.snapshot());
+    }
+
+    @Test
+    void armyAndTypeSlotsAreKeptApart(){
+        Roster<Personnel> army = Roster.army();
+        Roster<Footman> footmen = Roster.ofType();
+        Footman first = Footman.createFootman(base);
+        Footman second = Footman.createFootman(base);
+        army.add(first);
+        army.add(second);
+        footmen.add(second);
+
+        army.remove(first);
+        assertEquals(0, second.getArmySlot());
+        assertEquals(0, second.getRosterSlot());
+        assertFalse(footmen.remove(first));
+        assertEquals(1, footmen.size());
+    }
+
+    @Test
+    void pickRandomOnlyPicksLiveSlots(){
+        Roster<Personnel> army = Roster.army();
+        SplittableRandom random = new SplittableRandom(3);
+        assertNull(army.pickRandom(random));
+        Footman kept = Footman.createFootman(base);
+        Footman removed = Footman.createFootman(base);
+        army.add(removed);
+        army.add(kept);
+        army.remove(removed);
+        for (int i = 0; i < 100; i++) {
+            assertSame(kept, army.pickRandom(random));
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TargetHeapTest {
+
+    private final List<Base> bases = new ArrayList<>();
+
+    @AfterEach
+    void tearDown(){
+        for (Base base : bases) {
+            base.close();
+        }
+    }
+
+    @Test
+    void healthHeapKeepsTheLowestHealthOnTop(){
+        Base base = base("Test");
+        TargetHeap heap = new TargetHeap(TargetHeap.Key.HEALTH);
+        SplittableRandom random = new SplittableRandom(9);
+        for (int i = 0; i < 200; i++) {
+            Footman footman = Footman.createFootman(base);
+            footman.setHealth(random.nextInt(1, 500));
+            heap.add(footman);
+        }
+        int previous = Integer.MIN_VALUE;
+        while (heap.size() > 0) {
+            Personnel top = heap.peek();
+            assertTrue(top.getHealth() >= previous, top.getHealth() + " after " + previous);
+            previous = top.getHealth();
+            heap.remove(top);
+            assertEquals(-1, top.getHealthSlot());
+        }
+        assertNull(heap.peek());
+    }
+
+    @Test
+    void updateMovesAWoundedUnit(){
+        Base base = base("Test");
+        TargetHeap heap = new TargetHeap(TargetHeap.Key.HEALTH);
+        Footman healthy = Footman.createFootman(base);
+        Footman wounded = Footman.createFootman(base);
+        heap.add(healthy);
+        heap.add(wounded);
+
+        wounded.setHealth(100);
+        heap.update(wounded);
+        assertSame(wounded, heap.peek());
+
+        healthy.setHealth(50);
+        assertSame(wounded, heap.peek(), "the cached key is only re-read on update");
+        heap.update(healthy);
+        assertSame(healthy, heap.peek());
+    }
+
+    @Test
+    void threatHeapPutsFootmenBeforePeasants(){
+        Base base = base("Test");
+        TargetHeap heap = new TargetHeap(TargetHeap.Key.THREAT);
+        Peasant peasant = Peasant.createPeasant(base);
+        Footman footman = Footman.createFootman(base);
+        heap.add(peasant);
+        heap.add(footman);
+        heap.add(footman);
+        assertEquals(2, heap.size());
+        assertSame(footman, heap.peek());
+        heap.remove(footman);
+        assertSame(peasant, heap.peek());
+    }
+
+    @Test
+    void tiesBetweenEnemyBasesAreSpread(){
+        List<Base> enemies = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Base enemy = base("Enemy-" + i);
+            enemy.getArmy().add(Footman.createFootman(enemy));
+            enemies.add(enemy);
+        }
+        Opponents opponents = TargetingStrategy.LOWEST_HEALTH.opponents(enemies);
+        SplittableRandom random = new SplittableRandom(5);
+        int[] picks = new int[enemies.size()];
+        for (int i = 0; i < 3000; i++) {
+            picks[enemies.indexOf(opponents.pick(random).getOwner())]++;
+        }
+        for (int count : picks) {
+            assertTrue(count > 800, "picks " + count);
+        }
+    }
+
+    private Base base(String name){
+        Base base = Base.createEmptyBase(name, new DiscreteEventClock(), ExecutionMode.POOL, bases.size());
+        bases.add(base);
+        return base;
+    }
+
+}
@@ -0,0 +1,43 @@
+package warkcraft2;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WarTest {
+
+    @Test
+    void sameSeedFightsTheSameWar(){
+        War first = War.create(new DiscreteEventClock(), ExecutionMode.PLATFORM, 4, 4, 11);
+        War second = War.create(new DiscreteEventClock(), ExecutionMode.PLATFORM, 4, 4, 11);
+        assertEquals(first.play(), second.play());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(first.getBases().get(i).getArmy().size(), second.getBases().get(i).getArmy().size());
+        }
+    }
+
+    @Test
+    void teamCountMustLeaveSomeoneToFight(){
+        for (int teamCount : new int[]{-1, 0, 1, 5}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> War.create(new DiscreteEventClock(), ExecutionMode.PLATFORM, 4, teamCount, 1), "teams " + teamCount);
+        }
+    }
+
+    @Test
+    void warEndsWithOneTeamLeft(){
+        War war = War.create(new DiscreteEventClock(), ExecutionMode.PLATFORM, 4, 2, 5);
+        int winner = war.play();
+        assertTrue(winner == 0 || winner == 1, "winner " + winner);
+        assertEquals(0, war.getBasesLeft(1 - winner));
+        assertTrue(war.getBasesLeft(winner) > 0);
+        for (int i = 0; i < 4; i++) {
+            Base base = war.getBases().get(i);
+            if(war.getTeam(i) != winner)
+                assertTrue(base.getArmy().isEmpty(), base.getName());
+        }
+    }
+
+}
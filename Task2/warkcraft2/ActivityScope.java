@@ -0,0 +1,57 @@
+package warkcraft2;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scope owning every thread started for the activities of one base.
+ * Activities are executed according to the chosen {@link ExecutionMode};
+ * closing the scope stops accepting new activities and waits until the
+ * running ones have finished, so no thread outlives its base.
+ */
+public class ActivityScope implements Executor, AutoCloseable {
+
+    private final ExecutorService executor;
+    private final AtomicInteger active = new AtomicInteger(0);
+
+    public ActivityScope(String name, ExecutionMode mode){
+        this.executor = mode.newExecutor(name);
+    }
+
+    @Override
+    public void execute(Runnable activity){
+        executor.execute(() -> {
+            active.incrementAndGet();
+            try {
+                activity.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * @return Number of activities running right now, each of them on its own thread
+     */
+    public int getActiveCount(){
+        return active.get();
+    }
+
+    @Override
+    public void close(){
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // keep waiting for the running activities
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -1,257 +1,833 @@
 package warkcraft2;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 public class Base {
 
     private static final int STARTER_PEASANT_NUMBER = 5;
     private static final int PEASANT_NUMBER_GOAL = 10;
-
-    // lock to ensure only one unit can be trained at one time
-    private final ReentrantLock trainingLock = new ReentrantLock();
+    private static final int PREPARATION_TIME = 20000;
+    private static final int TRAINING_QUEUE_CAPACITY = 5;
+    // 0 folds the harvested income into the resources on every read, otherwise it is folded this often,
+    // by default once every harvesting trip, and before every decision on building or training
+    private static final int INCOME_FLUSH_INTERVAL = Integer.getInteger("warkcraft.income.flush", Peasant.HARVEST_WAIT_TIME);
+    // bytes of a peasant in a snapshot: health, job, building type, remaining build time, in the army
+    private static final int PEASANT_SNAPSHOT_SIZE = Integer.BYTES + 2 * Byte.BYTES + Long.BYTES + Byte.BYTES;
+    // bytes of a footman in a snapshot: health, in the army
+    private static final int FOOTMAN_SNAPSHOT_SIZE = Integer.BYTES + Byte.BYTES;
+    private static final byte JOB_NONE = 0;
+    private static final byte JOB_MINING = 1;
+    private static final byte JOB_CUTTING_WOOD = 2;
+    private static final Set<UnitType> REQUIRED_BUILDINGS = EnumSet.of(UnitType.LUMBERMILL, UnitType.BLACKSMITH, UnitType.BARRACKS, UnitType.FARM);
 
     private final String name;
-    private final Resources resources = new Resources();
-    private final List<Peasant> peasants = Collections.synchronizedList(new LinkedList<>());
-    private final List<Footman> footmen = Collections.synchronizedList(new LinkedList<>());
-    private final List<Building> buildings = Collections.synchronizedList(new LinkedList<>());
-    private final List<Personnel> army = Collections.synchronizedList(new LinkedList<>());
+    private final SimulationClock clock;
+    private final ActivityScope activities;
+    // every unit gets its own random stream split from this one, so a seeded simulation is reproducible
+    private final SplittableRandom random;
+    private final Resources resources = new Resources(INCOME_FLUSH_INTERVAL == 0);
+    private final Metrics metrics;
+    private final Roster<Peasant> peasants = Roster.ofType();
+    private final Roster<Footman> footmen = Roster.ofType();
+    private final BuildingRegistry buildings = new BuildingRegistry();
+    private final Roster<Personnel> army = Roster.army();
+    private final PeasantPool idlePeasants = new PeasantPool();
+    // every building training units has its own queue
+    private final ProductionQueue townHall = new ProductionQueue(this, TRAINING_QUEUE_CAPACITY);
+    private final List<ProductionQueue> barracks = new CopyOnWriteArrayList<>();
 
-    public Base(String name){
-        this.name = name;
+    private final AtomicInteger lumberCount = new AtomicInteger(0);
+    private final AtomicInteger minerCount = new AtomicInteger(0);
+    private final CompletableFuture<Void> preparation = new CompletableFuture<>();
+    private long preparationTime = PREPARATION_TIME;
+    private long preparationStart;
+    private final AtomicBoolean armyAssembled = new AtomicBoolean(false);
+    private final AtomicInteger unitIds = new AtomicInteger(0);
+    private volatile Journal journal;
+    // the army ordered as targets, only built once an enemy uses a targeting strategy that needs them
+    private volatile TargetHeap healthTargets;
+    private volatile TargetHeap threatTargets;
+    private int journalIndex;
+    // the preparation only runs again when something it waits for has changed
+    private final AtomicBoolean preparationRequested = new AtomicBoolean(false);
+    private final AtomicBoolean waitingForPeasant = new AtomicBoolean(false);
+    private final Set<UnitType> waitingForResources = ConcurrentHashMap.newKeySet();
+    private final CompletableFuture<Void> fight = new CompletableFuture<>();
+    // the army is only empty before the war because it isn't assembled yet, that doesn't end the fight
+    private final AtomicBoolean atWar = new AtomicBoolean(false);
+    // fallen units waiting for the reaper, which removes them in batches
+    private final Queue<Personnel> fallen = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean reaperScheduled = new AtomicBoolean(false);
+    // build order followed instead of the fixed one, and the step it is at
+    private volatile BuildPlan buildPlan;
+    private int planStep;
+    private final AtomicBoolean planTraining = new AtomicBoolean(false);
+
+    public Base(String name, SimulationClock clock, ExecutionMode executionMode){
+        this(name, clock, executionMode, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param name Name of the base
+     * @param clock Clock driving the simulation
+     * @param executionMode How the activities of the base are executed
+     * @param seed Seed of the random streams of the base's units
+     */
+    public Base(String name, SimulationClock clock, ExecutionMode executionMode, long seed){
+        this(name, clock, executionMode, new SplittableRandom(seed));
         for (int i = 0; i < STARTER_PEASANT_NUMBER; i++) {
             Peasant peasant = Peasant.createPeasant(this);
             if(i < 3)
                 peasant.startMining();
             else if(i < 4)
                 peasant.startCuttingWood();
-            peasants.add(peasant);
+            addPeasant(peasant);
         }
     }
 
+    /**
+     * Creates a base without the starter peasants, so nothing is harvesting or scheduled,
+     * e.g. to field an army put together by the caller.
+     *
+     * @param name Name of the base
+     * @param clock Clock driving the simulation
+     * @param executionMode How the activities of the base are executed
+     * @param seed Seed of the random streams of the base's units
+     * @return The empty base
+     */
+    public static Base createEmptyBase(String name, SimulationClock clock, ExecutionMode executionMode, long seed){
+        return new Base(name, clock, executionMode, new SplittableRandom(seed));
+    }
+
+    /**
+     * Creates a base without any units, they are added by the caller, e.g. restored from a snapshot.
+     */
+    private Base(String name, SimulationClock clock, ExecutionMode executionMode, SplittableRandom random){
+        this.name = name;
+        this.random = random;
+        this.clock = clock;
+        this.activities = new ActivityScope(name, executionMode);
+        this.metrics = new Metrics(name, clock, resources, activities);
+        openBarracksQueues(1);
+    }
+
     private boolean hasAllBuildings(){
-        return hasEnoughBuilding(UnitType.LUMBERMILL, 1) && hasEnoughBuilding(UnitType.BLACKSMITH, 1) && hasEnoughBuilding(UnitType.BARRACKS, 1) &&
-                hasEnoughBuilding(UnitType.FARM, 1);
-    }
-
-    public void startPreparation(){
-        new Thread(() -> {
-            while (!hasAllBuildings()){
-                if(!hasEnoughBuilding(UnitType.LUMBERMILL, 1)){
-                    Peasant peasant = this.getFreePeasant();
-                    if(peasant != null) {
-                        peasant.tryBuilding(UnitType.LUMBERMILL);
-                    }
-                }
-                if(!hasEnoughBuilding(UnitType.FARM, 3)){
-                    Peasant peasant = this.getFreePeasant();
-                    if(peasant != null) {
-                        peasant.tryBuilding(UnitType.FARM);
-                    }
-                }
-                if(!hasEnoughBuilding(UnitType.BARRACKS, 1)){
-                    Peasant peasant = this.getFreePeasant();
-                    if(peasant != null) {
-                        peasant.tryBuilding(UnitType.BARRACKS);
-                    }
-                }
-                if(!hasEnoughBuilding(UnitType.BLACKSMITH, 1)){
-                    Peasant peasant = this.getFreePeasant();
-                    if(peasant != null) {
-                        peasant.tryBuilding(UnitType.BLACKSMITH);
-                    }
-                }
+        for (UnitType unitType : REQUIRED_BUILDINGS) {
+            if(!hasEnoughBuilding(unitType, 1))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Plans the fastest build order from the current state of the base, see {@link BuildPlanner}.
+     * Peasants building and units being trained are not taken into account, so the base
+     * should be planned before its preparation starts.
+     *
+     * @return The plan, null if the goal of the preparation can't be reached
+     */
+    public BuildPlan planBuildOrder(){
+        Set<UnitType> missing = EnumSet.noneOf(UnitType.class);
+        for (UnitType unitType : REQUIRED_BUILDINGS) {
+            if(!hasEnoughBuilding(unitType, 1))
+                missing.add(unitType);
+        }
+        int miners = 0;
+        int lumberjacks = 0;
+        for (Peasant peasant : peasants) {
+            if(peasant.isMining())
+                miners++;
+            else if(peasant.isHarvesting())
+                lumberjacks++;
+        }
+        BuildPlanner planner = new BuildPlanner(missing, Math.max(PEASANT_NUMBER_GOAL - resources.getCapacity(), 0));
+        return planner.plan(resources.getGold(), resources.getWood(), resources.getCapacityLimit() - resources.getCapacity(),
+                miners, lumberjacks, idlePeasants.size());
+    }
+
+    /**
+     * Makes the preparation follow the given build order instead of the fixed one.
+     * Has to be called before the preparation starts.
+     *
+     * @param buildPlan The plan, see {@link #planBuildOrder()}
+     */
+    public void setBuildPlan(BuildPlan buildPlan){
+        this.buildPlan = buildPlan;
+    }
+
+    /**
+     * Starts preparing the base: constructing the buildings and training peasants
+     * until the preparation time is over, then the harvesting stops.
+     *
+     * @return Future completed when the preparation is over
+     */
+    public CompletableFuture<Void> startPreparation(){
+        // a base restored after its preparation goes straight to war
+        if(preparation.isDone())
+            return preparation;
+        preparationStart = clock.now();
+        requestPreparation();
+        whenAllBuildings(metrics::recordAllBuildings);
+        if(INCOME_FLUSH_INTERVAL > 0)
+            schedule(INCOME_FLUSH_INTERVAL, this::flushIncome);
+        schedule(preparationTime, () -> {
+            for (Peasant peasant : peasants) {
+                peasant.stopHarvesting();
             }
+            resources.flushIncome();
+
+            GameLog.info(this.name, "finished creating a base");
+            GameLog.info(this.name, "peasants:", this.peasants.size());
+            GameLog.info(this.name, "footmen:", this.footmen.size());
+            for (Building b : buildings) {
+                GameLog.info(this.name, "has a ", b.getUnitType());
+            }
+            preparation.complete(null);
         });
-        AtomicInteger lumberCount = new AtomicInteger(0);
-        AtomicInteger minerCount = new AtomicInteger(0);
-        new Thread(() -> {
-            while(resources.getCapacity() != PEASANT_NUMBER_GOAL){
-                Peasant peasant = createPeasant();
-                if(peasant == null)continue;
-                if(lumberCount.get() < 1){
-                    lumberCount.getAndIncrement();
-                    peasant.startCuttingWood();
+        return preparation;
+    }
+
+    /**
+     * One round of the preparation: assign free peasants to the missing buildings
+     * and train a new peasant if the peasant goal is not reached yet.
+     *
+     * Whatever can't be done right now registers a waiter for the condition blocking it:
+     * a peasant becoming idle, the resources reaching the cost, or the ordered peasant being trained.
+     * The next round runs only when one of these is signalled, so a waiting base uses no CPU.
+     */
+    private void prepare(){
+        preparationRequested.set(false);
+        if(preparation.isDone())
+            return;
+        if(buildPlan != null) {
+            followPlan();
+            return;
+        }
+        if(!hasAllBuildings()){
+            if(!hasEnoughBuilding(UnitType.LUMBERMILL, 1)){
+                assignBuilding(UnitType.LUMBERMILL);
+            }
+            if(!hasEnoughBuilding(UnitType.FARM, 3)){
+                assignBuilding(UnitType.FARM);
+            }
+            if(!hasEnoughBuilding(UnitType.BARRACKS, 1)){
+                assignBuilding(UnitType.BARRACKS);
+            }
+            if(!hasEnoughBuilding(UnitType.BLACKSMITH, 1)){
+                assignBuilding(UnitType.BLACKSMITH);
+            }
+        }
+        // one peasant is ordered at a time, its training requests the next round when it finishes
+        if(resources.getCapacity() != PEASANT_NUMBER_GOAL && townHall.getPending() == 0){
+            trainPeasant().thenAccept(this::assignJob);
+        }
+    }
+
+    /**
+     * Starts the steps of the build plan in order, as far as they can be started now.
+     * A step that can't be started registers a waiter for what it is missing, like the rounds of the fixed build order.
+     */
+    private synchronized void followPlan(){
+        List<BuildPlan.Step> steps = buildPlan.getSteps();
+        while (planStep < steps.size() && startStep(steps.get(planStep))) {
+            planStep++;
+        }
+    }
+
+    private boolean startStep(BuildPlan.Step step){
+        return switch (step) {
+            case TRAIN_PEASANT -> startPeasantTraining();
+            case MINE, CUT_WOOD -> {
+                Peasant peasant = idlePeasants.tryAcquire();
+                if(peasant == null) {
+                    waitForIdlePeasant();
+                    yield false;
                 }
-                else if(minerCount.get() < 2){
-                    minerCount.getAndIncrement();
+                if(step == BuildPlan.Step.MINE)
                     peasant.startMining();
-                }
-                peasants.add(peasant);
+                else
+                    peasant.startCuttingWood();
+                yield true;
             }
-        });
+            default -> assignBuilding(step.unitType);
+        };
+    }
 
-        try {
-            TimeUnit.SECONDS.sleep(20);
-        } catch (InterruptedException e) {
+    /**
+     * Trains a peasant of the build plan once the town hall is free and the peasant can be paid for.
+     * The trained peasant joins the idle ones.
+     *
+     * @return true, if the training has started
+     */
+    private boolean startPeasantTraining(){
+        // the training in progress runs the next round when it finishes,
+        // the town hall may still count it as pending by then
+        if(planTraining.get())
+            return false;
+        UnitType unitType = UnitType.PEASANT;
+        if(!resources.canTrain(unitType.goldCost, unitType.woodCost, unitType.foodCost)) {
+            waitForResources(unitType);
+            return false;
         }
+        CompletableFuture<Peasant> trained = trainPeasant();
+        if(trained == null)
+            return false;
+        planTraining.set(true);
+        trained.thenRun(() -> {
+            planTraining.set(false);
+            requestPreparation();
+        });
+        return true;
+    }
 
-        for (int i = 0; i < peasants.size(); i++) {
-            peasants.get(i).stopHarvesting();
+    /**
+     * Sends a newly trained peasant to harvest, until there are enough lumberjacks and miners,
+     * then runs the next round of the preparation.
+     *
+     * @param peasant The trained peasant
+     */
+    private void assignJob(Peasant peasant){
+        if(lumberCount.get() < 1){
+            lumberCount.getAndIncrement();
+            peasant.startCuttingWood();
+        }
+        else if(minerCount.get() < 2){
+            minerCount.getAndIncrement();
+            peasant.startMining();
         }
+        requestPreparation();
+    }
 
-        System.out.println(this.name + " finished creating a base");
-        System.out.println(this.name + " peasants: " + this.peasants.size());
-        System.out.println(this.name + " footmen: " + this.footmen.size());
-        for(Building b : buildings){
-            System.out.println(this.name + " has a  " + b.getUnitType().toString());
+    /**
+     * Runs the action once the base has every building checked by {@link #hasAllBuildings()}.
+     *
+     * @param action The action to run
+     */
+    private void whenAllBuildings(Runnable action){
+        AtomicInteger missing = new AtomicInteger(REQUIRED_BUILDINGS.size());
+        for (UnitType unitType : REQUIRED_BUILDINGS) {
+            buildings.whenBuilt(unitType, 1, () -> {
+                if(missing.decrementAndGet() == 0)
+                    action.run();
+            });
         }
     }
 
+    /**
+     * Runs a round of the preparation as soon as possible, unless one is already pending.
+     */
+    private void requestPreparation(){
+        if(!preparation.isDone() && preparationRequested.compareAndSet(false, true))
+            schedule(0, this::prepare);
+    }
+
+    private void waitForIdlePeasant(){
+        if(waitingForPeasant.compareAndSet(false, true))
+            idlePeasants.whenIdle(() -> {
+                waitingForPeasant.set(false);
+                requestPreparation();
+            });
+    }
+
+    private void waitForResources(UnitType unitType){
+        if(waitingForResources.add(unitType))
+            resources.whenAvailable(unitType.goldCost, unitType.woodCost, unitType.foodCost, () -> {
+                waitingForResources.remove(unitType);
+                requestPreparation();
+            });
+    }
+
+    /**
+     * Folds the harvested income into the resources every INCOME_FLUSH_INTERVAL while the peasants are harvesting.
+     */
+    private void flushIncome(){
+        resources.flushIncome();
+        if(!preparation.isDone())
+            schedule(INCOME_FLUSH_INTERVAL, this::flushIncome);
+    }
+
     /**
      * Assemble the army - call the peasants and footmen to arms
-     * @param latch
      */
-    public void assembleArmy(CountDownLatch latch){
-        army.addAll(peasants);
-        army.addAll(footmen);
-        System.out.println(this.name + " is ready for war");
-        // the latch is used to keep track of both factions
-        latch.countDown();
+    public void assembleArmy(){
+        if(!armyAssembled.compareAndSet(false, true))
+            return;
+        army.addAll(peasants.snapshot());
+        army.addAll(footmen.snapshot());
+        GameLog.info(this.name, "is ready for war");
     }
 
     /**
      * Starts a war between the two bases.
+     * Every soldier's first attack is scheduled for the same moment, so when both
+     * bases go to war from the same action the armies attack at the same time.
      *
      * @param enemy Enemy base's personnel
-     * @param warLatch Latch to make sure they attack at the same time
-     */
-    public void goToWar(List<Personnel> enemy, CountDownLatch warLatch){
-        // This is necessary to ensure that both armies attack at the same time
-        warLatch.countDown();
-        try {
-            // Waiting for the other army to be ready for war
-            warLatch.await();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+     * @return Future completed when the fight is resolved
+     */
+    public CompletableFuture<Void> goToWar(Roster<Personnel> enemy){
+        if(enemy.isEmpty())
+            fight.complete(null);
+        return goToWar((Opponents) enemy::pickRandom);
+    }
+
+    /**
+     * Starts a war against any number of enemy armies, see {@link War}.
+     * The fight of the base is over when its army is wiped out, or when its soldiers find no more enemies.
+     *
+     * @param enemies The enemy units
+     * @return Future completed when the fight is resolved
+     */
+    public CompletableFuture<Void> goToWar(Opponents enemies){
+        atWar.set(true);
+        if(army.isEmpty())
+            fight.complete(null);
+        for (Personnel soldier : army) {
+            schedule(0, () -> soldier.startWar(enemies));
         }
-        // TODO Start attacking the enemy with every soldier on a separate thread
-        // TODO Wait until the fight is resolved
 
+        return fight.thenRun(this::announceFightResult);
+    }
+
+    /**
+     * Announces whether the base has won or lost the fight.
+     */
+    public void announceFightResult(){
         // If our army has no personnel, we failed
         if(army.isEmpty()){
-            System.out.println(this.name + " has lost the fight");
+            GameLog.info(this.name, "has lost the fight");
         } else {
-            System.out.println(this.name + " has won the fight");
+            GameLog.info(this.name, "has won the fight");
         }
     }
 
     /**
-     * Resolves the event when a personnel dies;
-     * Remove it from the army and update the capacity.
+     * Signals that the enemy army has no personnel left.
+     */
+    public void signalEnemyDefeated(){
+        fight.complete(null);
+    }
+
+    /**
+     * Resolves the event when a personnel dies, called exactly once for every unit.
+     * The unit is only handed over to the reaper of the base, so an attacker pays the same
+     * for every kill; it is taken out of the target heaps right away, so no one picks it again.
+     *
      * @param p The fallen personnel
      */
     public void signalPersonnelDeath(Personnel p){
-        resources.updateCapacity(-p.getUnitType().foodCost);
-        switch (p.getUnitType()) {
-            case PEASANT -> {
-                peasants.remove((Peasant) p);
-                army.remove(p);
-            }
-            case FOOTMAN -> {
-                footmen.remove((Footman) p);
-                army.remove(p);
+        TargetHeap targets = healthTargets;
+        if(targets != null)
+            targets.remove(p);
+        targets = threatTargets;
+        if(targets != null)
+            targets.remove(p);
+        fallen.add(p);
+        if(reaperScheduled.compareAndSet(false, true))
+            schedule(0, this::reapDeaths);
+    }
+
+    /**
+     * Removes every fallen unit from the rosters and the army and gives back their food in one pass.
+     * Completes the fight of the base if its army has been wiped out in the war.
+     */
+    void reapDeaths(){
+        // a death signalled from now on schedules the reaper again
+        reaperScheduled.set(false);
+        int food = 0;
+        Journal journal = this.journal;
+        Personnel p;
+        while ((p = fallen.poll()) != null) {
+            switch (p.getUnitType()) {
+                case PEASANT -> peasants.remove((Peasant) p);
+                case FOOTMAN -> footmen.remove((Footman) p);
             }
+            army.remove(p);
+            food += p.getUnitType().foodCost;
+            metrics.recordDeath();
+            if(journal != null)
+                journal.death(journalIndex, p.getId(), p.getUnitType());
+            GameLog.debug(this.name, "has lost a", p.getUnitType());
         }
-        System.out.println(this.name + " has lost a " + p.getUnitType().toString());
-
+        if(food != 0)
+            resources.updateCapacity(-food);
+        if(atWar.get() && army.isEmpty())
+            fight.complete(null);
     }
 
     /**
-     * Returns a peasants that is currently free.
-     * Being free means that the peasant currently isn't harvesting or building.
+     * Gives a building job to an idle peasant.
+     * If the building can't be started, the peasant goes back to the idle pool.
      *
-     * @return Peasant object, if found one, null if there isn't one
+     * @param buildingType Type of the building
+     * @return true, if the building has started
      */
-    private Peasant getFreePeasant(){
-        for (int i = 0; i < peasants.size(); i++) {
-            if(peasants.get(i).isFree())
-                return peasants.get(i);
+    private boolean assignBuilding(UnitType buildingType){
+        Peasant peasant = idlePeasants.tryAcquire();
+        if(peasant == null) {
+            waitForIdlePeasant();
+            return false;
         }
-        return null;
+        if(!peasant.tryBuilding(buildingType)) {
+            idlePeasants.release(peasant);
+            waitForResources(buildingType);
+            return false;
+        }
+        return true;
+    }
+
+    private void addPeasant(Peasant peasant){
+        peasants.add(peasant);
+        idlePeasants.release(peasant);
     }
 
     /**
-     * Creates a peasant.
+     * Orders a peasant in the town hall.
      * A peasant could only be trained if there are sufficient
-     * gold, wood and food for him to train.
+     * gold, wood and food for him to train, the order waits in the queue until there are.
      *
-     * At one time only one Peasant can be trained.
+     * The town hall trains one unit at a time.
      *
-     * @return The newly created peasant if it could be trained, null otherwise
-     */
-    private Peasant createPeasant(){
-        try {
-            if(trainingLock.tryLock() || trainingLock.tryLock(UnitType.PEASANT.buildTime, TimeUnit.MILLISECONDS)) {
-                Peasant result;
-                if (resources.canTrain(UnitType.PEASANT.goldCost, UnitType.PEASANT.woodCost, UnitType.PEASANT.foodCost)) {
-                    sleepForMsec(UnitType.PEASANT.buildTime);
-                    resources.removeCost(UnitType.PEASANT.goldCost, UnitType.PEASANT.woodCost);
-                    resources.updateCapacity(UnitType.PEASANT.foodCost);
-                    result = Peasant.createPeasant(this);
-                    System.out.println(this.name + " created a peasant");
-                    return result;
-                }
-            }
-        } catch (InterruptedException e) {
-        } finally {
-            trainingLock.unlock();
-        }
-        return null;
-    }
-
-    private Footman createFootman(){
-        try {
-            if(trainingLock.tryLock() || trainingLock.tryLock(UnitType.FOOTMAN.buildTime, TimeUnit.MILLISECONDS)) {
-                Footman result;
-                if (resources.canTrain(UnitType.FOOTMAN.goldCost, UnitType.FOOTMAN.woodCost, UnitType.FOOTMAN.foodCost) &&
-                        barracksIsBuilt()) {
-                    sleepForMsec(UnitType.FOOTMAN.buildTime);
-                    resources.removeCost(UnitType.FOOTMAN.goldCost, UnitType.FOOTMAN.woodCost);
-                    resources.updateCapacity(UnitType.FOOTMAN.foodCost);
-                    result = Footman.createFootman(this);
-
-                    System.out.println(this.name + " created a footman");
-                    return result;
-                }
-            }
-        } catch (InterruptedException e) {
-        }finally {
-            trainingLock.unlock();
-        }
-        return null;
+     * @return Future completed with the newly created peasant once its training time is over,
+     *         null if the town hall's queue is full
+     */
+    public CompletableFuture<Peasant> trainPeasant(){
+        CompletableFuture<Peasant> trained = townHall.enqueue(UnitType.PEASANT, () -> Peasant.createPeasant(this));
+        if(trained == null)
+            return null;
+        return trained.thenApply(this::peasantTrained);
     }
 
-    private Boolean barracksIsBuilt() {
-        for (int i = 0; i < buildings.size(); i++) {
-            if(buildings.get(i).getUnitType() == UnitType.BARRACKS)
-                return true;
+    private Peasant peasantTrained(Peasant peasant){
+        GameLog.debug(this.name, "created a peasant");
+        // the peasant enters the idle pool only after its new owner had the chance to give it a job
+        schedule(0, () -> addPeasant(peasant));
+        return peasant;
+    }
+
+    /**
+     * Orders a footman in the barracks with the fewest orders.
+     * Every barracks trains one unit at a time, so more barracks train more footmen at once.
+     *
+     * @return Future completed with the newly created footman once its training time is over,
+     *         null if there are no barracks or their queue is full
+     */
+    public CompletableFuture<Footman> trainFootman(){
+        ProductionQueue barracks = null;
+        for (ProductionQueue queue : this.barracks) {
+            if(barracks == null || queue.getPending() < barracks.getPending())
+                barracks = queue;
         }
-        return false;
+        if(barracks == null)
+            return null;
+        CompletableFuture<Footman> trained = barracks.enqueue(UnitType.FOOTMAN, () -> Footman.createFootman(this));
+        if(trained == null)
+            return null;
+        return trained.thenApply(this::footmanTrained);
+    }
+
+    private Footman footmanTrained(Footman footman){
+        footmen.add(footman);
+        GameLog.debug(this.name, "created a footman");
+        return footman;
+    }
+
+    /**
+     * Opens a training queue for every barracks, the count-th one included.
+     *
+     * @param count Number of the next barracks
+     */
+    private void openBarracksQueues(int count){
+        buildings.whenBuilt(UnitType.BARRACKS, count, () -> {
+            barracks.add(new ProductionQueue(this, TRAINING_QUEUE_CAPACITY));
+            openBarracksQueues(count + 1);
+        });
+    }
+
+    /**
+     * Creates a new random stream for a unit of the base.
+     * The streams are split in the order the units are created, so the same seed
+     * and the same order of events give every unit the same numbers.
+     *
+     * @return Random stream independent of every other unit's
+     */
+    synchronized SplittableRandom splitRandom(){
+        return random.split();
     }
 
     public Resources getResources(){
         return this.resources;
     }
 
-    public List<Personnel> getArmy(){
+    /**
+     * Returns the army of the base ordered as targets, the heap is built on the first call
+     * and kept up to date from then on as the units lose health and die.
+     *
+     * @param key What the targets are ordered by
+     * @return The target heap of the army
+     */
+    public synchronized TargetHeap getTargets(TargetHeap.Key key){
+        TargetHeap targets = key == TargetHeap.Key.HEALTH ? healthTargets : threatTargets;
+        if(targets != null)
+            return targets;
+        targets = new TargetHeap(key);
+        for (Personnel unit : army) {
+            targets.add(unit);
+        }
+        if(key == TargetHeap.Key.HEALTH)
+            healthTargets = targets;
+        else
+            threatTargets = targets;
+        return targets;
+    }
+
+    /**
+     * Signals that a unit of the base has lost health, so it has to be moved in the target heap.
+     *
+     * @param p The wounded personnel
+     */
+    void healthChanged(Personnel p){
+        TargetHeap targets = healthTargets;
+        if(targets != null)
+            targets.update(p);
+    }
+
+    /**
+     * Records the attacks, deaths and resource changes of the base in the journal from now on.
+     *
+     * @param journal The journal of the match
+     * @param index Index of the base in the journal
+     */
+    public void setJournal(Journal journal, int index){
+        this.journalIndex = index;
+        this.journal = journal;
+        resources.setJournal(journal, index);
+    }
+
+    /**
+     * @return The journal of the match, null if it isn't journaled
+     */
+    public Journal getJournal(){
+        return this.journal;
+    }
+
+    public int getJournalIndex(){
+        return this.journalIndex;
+    }
+
+    /**
+     * @return A new identifier for a unit of the base
+     */
+    int nextUnitId(){
+        return unitIds.getAndIncrement();
+    }
+
+    public Metrics getMetrics(){
+        return this.metrics;
+    }
+
+    public Roster<Personnel> getArmy(){
         return this.army;
     }
 
-    public List<Building> getBuildings(){
+    public BuildingRegistry getBuildings(){
         return this.buildings;
     }
 
+    public PeasantPool getIdlePeasants(){
+        return this.idlePeasants;
+    }
+
     public String getName(){
         return this.name;
     }
 
+    public SimulationClock getClock(){
+        return this.clock;
+    }
+
+    /**
+     * Runs an activity of the base or one of its units after the given delay.
+     * The activity is executed in the base's activity scope.
+     *
+     * @param delay Delay in milliseconds
+     * @param activity The activity to run
+     */
+    public void schedule(long delay, Runnable activity){
+        clock.schedule(delay, activity, activities);
+    }
+
+    /**
+     * Closes the activity scope of the base, waiting for the running activities to finish.
+     */
+    public void close(){
+        activities.close();
+    }
+
+    /**
+     * @return Number of bytes {@link #writeTo(ByteBuffer)} writes
+     */
+    int snapshotSize(){
+        int size = Short.BYTES + name.getBytes(StandardCharsets.UTF_8).length
+                + Long.BYTES + 2 * Integer.BYTES + Byte.BYTES + Resources.SNAPSHOT_SIZE
+                + Integer.BYTES + buildings.size()
+                + Integer.BYTES + peasants.size() * PEASANT_SNAPSHOT_SIZE
+                + Integer.BYTES + footmen.size() * FOOTMAN_SNAPSHOT_SIZE
+                + Integer.BYTES + townHall.snapshotSize();
+        for (ProductionQueue queue : barracks) {
+            size += queue.snapshotSize();
+        }
+        return size;
+    }
+
+    /**
+     * Writes the state of the base: its resources, buildings, units with their health and jobs,
+     * and the remaining time of the preparation, the buildings under construction and the trainings.
+     * The simulation has to be paused while the base is written.
+     *
+     * @param buffer Buffer with at least {@link #snapshotSize()} bytes remaining
+     */
+    void writeTo(ByteBuffer buffer){
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) nameBytes.length).put(nameBytes);
+        buffer.putLong(preparation.isDone() ? -1 : preparationStart + preparationTime - clock.now());
+        buffer.putInt(lumberCount.get()).putInt(minerCount.get());
+        buffer.put((byte) (armyAssembled.get() ? 1 : 0));
+        resources.writeTo(buffer);
+
+        List<Building> buildingList = buildings.asList();
+        buffer.putInt(buildingList.size());
+        for (Building building : buildingList) {
+            buffer.put((byte) building.getUnitType().ordinal());
+        }
+
+        List<Peasant> peasantList = peasants.snapshot();
+        buffer.putInt(peasantList.size());
+        for (Peasant peasant : peasantList) {
+            UnitType buildingType = peasant.getBuildingType();
+            buffer.putInt(peasant.getHealth());
+            buffer.put(!peasant.isHarvesting() ? JOB_NONE : peasant.isMining() ? JOB_MINING : JOB_CUTTING_WOOD);
+            buffer.put((byte) (buildingType == null ? -1 : buildingType.ordinal()));
+            buffer.putLong(buildingType == null ? -1 : peasant.getBuildingDue() - clock.now());
+            buffer.put((byte) (peasant.getArmySlot() >= 0 ? 1 : 0));
+        }
+
+        List<Footman> footmanList = footmen.snapshot();
+        buffer.putInt(footmanList.size());
+        for (Footman footman : footmanList) {
+            buffer.putInt(footman.getHealth());
+            buffer.put((byte) (footman.getArmySlot() >= 0 ? 1 : 0));
+        }
+
+        buffer.putInt(1 + barracks.size());
+        townHall.writeTo(buffer);
+        for (ProductionQueue queue : barracks) {
+            queue.writeTo(buffer);
+        }
+    }
+
+    /**
+     * Restores a base written by {@link #writeTo(ByteBuffer)}.
+     * The activities that were in progress (harvesting, building, training) are continued
+     * with their remaining time on the given clock, a harvesting trip starts over.
+     *
+     * @param buffer Buffer positioned at the written base
+     * @param clock Clock driving the restored simulation
+     * @param executionMode How the activities of the base are executed
+     * @param seed Seed of the random streams of the restored units
+     * @return The restored base
+     */
+    static Base readFrom(ByteBuffer buffer, SimulationClock clock, ExecutionMode executionMode, long seed){
+        byte[] nameBytes = new byte[buffer.getShort()];
+        buffer.get(nameBytes);
+        Base base = new Base(new String(nameBytes, StandardCharsets.UTF_8), clock, executionMode, new SplittableRandom(seed));
+        long preparationRemaining = buffer.getLong();
+        if(preparationRemaining < 0)
+            base.preparation.complete(null);
+        else
+            base.preparationTime = preparationRemaining;
+        base.lumberCount.set(buffer.getInt());
+        base.minerCount.set(buffer.getInt());
+        boolean armyAssembled = buffer.get() == 1;
+        base.armyAssembled.set(armyAssembled);
+        base.resources.readFrom(buffer);
+
+        UnitType[] unitTypes = UnitType.values();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            base.buildings.add(Building.restoreBuilding(unitTypes[buffer.get()], base));
+        }
+
+        List<Personnel> army = new ArrayList<>();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            Peasant peasant = Peasant.createPeasant(base);
+            peasant.setHealth(buffer.getInt());
+            byte job = buffer.get();
+            byte buildingType = buffer.get();
+            long buildingRemaining = buffer.getLong();
+            if(buffer.get() == 1)
+                army.add(peasant);
+            base.peasants.add(peasant);
+            if(buildingType >= 0) {
+                UnitType type = unitTypes[buildingType];
+                peasant.resumeBuilding(type, buildingRemaining, base.resources.restoreReservation(type.goldCost, type.woodCost, 0));
+            } else if(job == JOB_MINING) {
+                peasant.startMining();
+            } else if(job == JOB_CUTTING_WOOD) {
+                peasant.startCuttingWood();
+            } else {
+                base.idlePeasants.release(peasant);
+            }
+        }
+
+        for (int i = buffer.getInt(); i > 0; i--) {
+            Footman footman = Footman.createFootman(base);
+            footman.setHealth(buffer.getInt());
+            if(buffer.get() == 1)
+                army.add(footman);
+            base.footmen.add(footman);
+        }
+        base.army.addAll(army);
+
+        int queues = buffer.getInt();
+        for (int i = 0; i < queues; i++) {
+            base.restoreOrders(buffer, i == 0 ? base.townHall : base.barracks.get(i - 1));
+        }
+        return base;
+    }
+
+    private void restoreOrders(ByteBuffer buffer, ProductionQueue queue){
+        for (int i = buffer.getInt(); i > 0; i--) {
+            UnitType unitType = UnitType.values()[buffer.get()];
+            long remaining = buffer.getLong();
+            Resources.Reservation reservation = remaining < 0 ? null
+                    : resources.restoreReservation(unitType.goldCost, unitType.woodCost, unitType.foodCost);
+            if(unitType == UnitType.PEASANT) {
+                Supplier<Peasant> factory = () -> Peasant.createPeasant(this);
+                // only the preparation orders peasants, the restored one is given a job the same way
+                (reservation == null ? queue.enqueue(unitType, factory) : queue.resume(unitType, factory, remaining, reservation))
+                        .thenApply(this::peasantTrained).thenAccept(this::assignJob);
+            } else {
+                Supplier<Footman> factory = () -> Footman.createFootman(this);
+                (reservation == null ? queue.enqueue(unitType, factory) : queue.resume(unitType, factory, remaining, reservation))
+                        .thenApply(this::footmanTrained);
+            }
+        }
+    }
+
     /**
      * Helper method to determine if a base has the required number of a certain building.
      *
@@ -260,19 +836,7 @@ public class Base {
      * @return true, if required amount is reached (or surpassed), false otherwise
      */
     private boolean hasEnoughBuilding(UnitType unitType, int required){
-        int counter = 0;
-        for (int i = 0; i < buildings.size(); i++) {
-            if(buildings.get(i).getUnitType() == unitType)
-                counter++;
-        }
-        return required == counter;
-    }
-
-    private static void sleepForMsec(int sleepTime) {
-        try {
-            TimeUnit.MILLISECONDS.sleep(sleepTime);
-        } catch (InterruptedException e) {
-        }
+        return buildings.hasAtLeast(unitType, required);
     }
 
 }
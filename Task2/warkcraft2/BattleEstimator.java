@@ -0,0 +1,273 @@
+package warkcraft2;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Estimates the outcome of a war between two armies without fighting it with units and a clock.
+ * The war is sampled with {@link MassBattle} on primitive arrays, every sample with its own seed,
+ * until the win probabilities are known precisely enough or the sample limit is reached.
+ *
+ * Samples are taken in waves split between the threads of the pool, the first waves are small so a lopsided
+ * war is settled after a few samples, later ones grow up to {@link #WAVE}. After every wave
+ * the 95% Wilson score interval of both sides' win probability is checked, and the sampling stops once
+ * neither is wider than the precision on either side. The waves don't depend on the number of threads,
+ * so an estimate only depends on its seed.
+ */
+public class BattleEstimator {
+
+    private static final int FIRST_WAVE = 64;
+    private static final int WAVE = 256;
+    // smallest share of a wave worth handing to another thread
+    private static final int MIN_CHUNK = 32;
+    private static final double Z = 1.96;
+
+    private final ForkJoinPool pool;
+    private final double precision;
+    private final int maxSamples;
+
+    /**
+     * Creates an estimator sampling on the common pool, to within 2% with at most 10000 samples.
+     */
+    public BattleEstimator(){
+        this(ForkJoinPool.commonPool(), 0.02, 10_000);
+    }
+
+    /**
+     * @param pool Pool taking the samples
+     * @param precision Largest half width of the confidence interval of a win probability to stop at
+     * @param maxSamples Number of samples to stop at even if the estimate isn't precise enough
+     */
+    public BattleEstimator(ForkJoinPool pool, double precision, int maxSamples){
+        this.pool = pool;
+        this.precision = precision;
+        this.maxSamples = maxSamples;
+    }
+
+    /**
+     * Estimates the outcome of a war.
+     *
+     * @param first Number of units of the first army by type, only personnel can fight
+     * @param second Number of units of the second army by type
+     * @param seed Seed of the samples
+     * @return The estimate
+     */
+    public Estimate estimate(Map<UnitType, Integer> first, Map<UnitType, Integer> second, long seed){
+        Army firstArmy = new Army(first);
+        Army secondArmy = new Army(second);
+        Tally tally = new Tally();
+        while (tally.samples < maxSamples) {
+            int wave = Math.min(Math.min(WAVE, Math.max(FIRST_WAVE, tally.samples)), maxSamples - tally.samples);
+            int chunks = Math.max(1, Math.min(pool.getParallelism(), wave / MIN_CHUNK));
+            int start = tally.samples;
+            if(chunks == 1) {
+                tally.add(sample(firstArmy, secondArmy, seed, start, start + wave));
+            } else {
+                List<ForkJoinTask<Tally>> tasks = new ArrayList<>(chunks);
+                for (int c = 0; c < chunks; c++) {
+                    int from = start + (int) ((long) wave * c / chunks);
+                    int to = start + (int) ((long) wave * (c + 1) / chunks);
+                    tasks.add(pool.submit(() -> sample(firstArmy, secondArmy, seed, from, to)));
+                }
+                for (ForkJoinTask<Tally> task : tasks) {
+                    tally.add(task.join());
+                }
+            }
+            if(halfWidth(tally.firstWins, tally.samples) <= precision && halfWidth(tally.secondWins, tally.samples) <= precision)
+                break;
+        }
+        return new Estimate(tally);
+    }
+
+    private static Tally sample(Army first, Army second, long seed, int from, int to){
+        Tally tally = new Tally();
+        for (int i = from; i < to; i++) {
+            MassBattle battle = new MassBattle(mix(seed + 0x9E3779B97F4A7C15L * (i + 1)), new HeapUnitStorage(first.size() + second.size()));
+            first.addTo(battle, MassBattle.FIRST);
+            second.addTo(battle, MassBattle.SECOND);
+            switch (battle.run()) {
+                case MassBattle.FIRST -> tally.firstWins++;
+                case MassBattle.SECOND -> tally.secondWins++;
+                default -> tally.draws++;
+            }
+            tally.firstSurvivors += battle.getSurvivors(MassBattle.FIRST);
+            tally.secondSurvivors += battle.getSurvivors(MassBattle.SECOND);
+            tally.samples++;
+        }
+        return tally;
+    }
+
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return Half width of the 95% Wilson score interval of a probability
+     */
+    private static double halfWidth(long successes, long samples){
+        return (wilson(successes, samples, 1) - wilson(successes, samples, -1)) / 2;
+    }
+
+    /**
+     * @param sign 1 for the upper bound, -1 for the lower one
+     * @return Bound of the 95% Wilson score interval of a probability
+     */
+    private static double wilson(long successes, long samples, int sign){
+        if(samples == 0)
+            return sign > 0 ? 1 : 0;
+        double p = (double) successes / samples;
+        double z2 = Z * Z / samples;
+        double center = p + z2 / 2;
+        double spread = Z * Math.sqrt(p * (1 - p) / samples + z2 / (4 * samples));
+        return Math.min(1, Math.max(0, (center + sign * spread) / (1 + z2)));
+    }
+
+    /**
+     * Stats of the units of an army, in the order they are added to the samples.
+     */
+    private static final class Army {
+        private final int[] health;
+        private final int[] attackMin;
+        private final int[] attackMax;
+
+        private Army(Map<UnitType, Integer> counts){
+            Map<UnitType, Integer> ordered = new EnumMap<>(UnitType.class);
+            ordered.putAll(counts);
+            int size = 0;
+            for (int count : ordered.values()) {
+                if(count < 0)
+                    throw new IllegalArgumentException("Negative unit count: " + count);
+                size += count;
+            }
+            health = new int[size];
+            attackMin = new int[size];
+            attackMax = new int[size];
+            int unit = 0;
+            for (Map.Entry<UnitType, Integer> entry : ordered.entrySet()) {
+                for (int i = 0; i < entry.getValue(); i++, unit++) {
+                    switch (entry.getKey()) {
+                        case PEASANT -> set(unit, Peasant.HEALTH, Peasant.ATTACK_MIN, Peasant.ATTACK_MAX);
+                        case FOOTMAN -> set(unit, Footman.HEALTH, Footman.ATTACK_MIN, Footman.ATTACK_MAX);
+                        default -> throw new IllegalArgumentException("Not a personnel: " + entry.getKey());
+                    }
+                }
+            }
+        }
+
+        private void set(int unit, int health, int attackMin, int attackMax){
+            this.health[unit] = health;
+            this.attackMin[unit] = attackMin;
+            this.attackMax[unit] = attackMax;
+        }
+
+        private int size(){
+            return health.length;
+        }
+
+        private void addTo(MassBattle battle, int side){
+            for (int unit = 0; unit < health.length; unit++) {
+                battle.addUnit(side, health[unit], attackMin[unit], attackMax[unit]);
+            }
+        }
+    }
+
+    private static final class Tally {
+        private int samples;
+        private int firstWins;
+        private int secondWins;
+        private int draws;
+        private long firstSurvivors;
+        private long secondSurvivors;
+
+        private void add(Tally other){
+            samples += other.samples;
+            firstWins += other.firstWins;
+            secondWins += other.secondWins;
+            draws += other.draws;
+            firstSurvivors += other.firstSurvivors;
+            secondSurvivors += other.secondSurvivors;
+        }
+    }
+
+    /**
+     * Estimated outcome of a war.
+     */
+    public static final class Estimate {
+        private final int samples;
+        private final int firstWins;
+        private final int secondWins;
+        private final int draws;
+        private final double firstSurvivors;
+        private final double secondSurvivors;
+
+        private Estimate(Tally tally){
+            this.samples = tally.samples;
+            this.firstWins = tally.firstWins;
+            this.secondWins = tally.secondWins;
+            this.draws = tally.draws;
+            this.firstSurvivors = samples == 0 ? 0 : (double) tally.firstSurvivors / samples;
+            this.secondSurvivors = samples == 0 ? 0 : (double) tally.secondSurvivors / samples;
+        }
+
+        /**
+         * @return Number of samples taken
+         */
+        public int getSamples(){
+            return samples;
+        }
+
+        public double getFirstWinProbability(){
+            return samples == 0 ? 0 : (double) firstWins / samples;
+        }
+
+        public double getSecondWinProbability(){
+            return samples == 0 ? 0 : (double) secondWins / samples;
+        }
+
+        public double getDrawProbability(){
+            return samples == 0 ? 0 : (double) draws / samples;
+        }
+
+        /**
+         * @return Lower bound of the 95% confidence interval of the first army's win probability
+         */
+        public double getFirstWinLowerBound(){
+            return wilson(firstWins, samples, -1);
+        }
+
+        /**
+         * @return Upper bound of the 95% confidence interval of the first army's win probability
+         */
+        public double getFirstWinUpperBound(){
+            return wilson(firstWins, samples, 1);
+        }
+
+        /**
+         * @return Expected number of surviving units of the first army
+         */
+        public double getExpectedFirstSurvivors(){
+            return firstSurvivors;
+        }
+
+        /**
+         * @return Expected number of surviving units of the second army
+         */
+        public double getExpectedSecondSurvivors(){
+            return secondSurvivors;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("first wins %.3f [%.3f, %.3f], second wins %.3f, draw %.3f, survivors %.2f / %.2f, %d samples",
+                    getFirstWinProbability(), getFirstWinLowerBound(), getFirstWinUpperBound(), getSecondWinProbability(),
+                    getDrawProbability(), firstSurvivors, secondSurvivors, samples);
+        }
+    }
+
+}
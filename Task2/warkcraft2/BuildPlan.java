@@ -0,0 +1,61 @@
+package warkcraft2;
+
+import java.util.List;
+
+/**
+ * Build order of a base's preparation, computed by {@link BuildPlanner}.
+ * The steps are carried out one after the other: a step is started as soon as it can be,
+ * and the next one only after it, see {@link Base#setBuildPlan(BuildPlan)}.
+ */
+public class BuildPlan {
+
+    /**
+     * One step of a build order.
+     */
+    public enum Step {
+        BUILD_LUMBERMILL(UnitType.LUMBERMILL),
+        BUILD_FARM(UnitType.FARM),
+        BUILD_BARRACKS(UnitType.BARRACKS),
+        BUILD_BLACKSMITH(UnitType.BLACKSMITH),
+        // train a peasant in the town hall, it joins the idle peasants
+        TRAIN_PEASANT(UnitType.PEASANT),
+        // send an idle peasant to harvest
+        MINE(null),
+        CUT_WOOD(null);
+
+        public final UnitType unitType;
+
+        Step(UnitType unitType){
+            this.unitType = unitType;
+        }
+
+        public boolean isBuilding(){
+            return unitType != null && unitType != UnitType.PEASANT;
+        }
+    }
+
+    private final List<Step> steps;
+    private final long duration;
+
+    BuildPlan(List<Step> steps, long duration){
+        this.steps = List.copyOf(steps);
+        this.duration = duration;
+    }
+
+    public List<Step> getSteps(){
+        return steps;
+    }
+
+    /**
+     * @return Time the plan reaches its goal in, measured from the start of the planning
+     */
+    public long getDuration(){
+        return duration;
+    }
+
+    @Override
+    public String toString(){
+        return steps + " in " + duration + " ms";
+    }
+
+}
@@ -0,0 +1,341 @@
+package warkcraft2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Finds the fastest build order of a base's preparation: the one having every required building
+ * (counted from the start of their construction, like {@link BuildingRegistry}) and every peasant
+ * of the goal trained the earliest.
+ *
+ * The planner searches over the states of the economy: gold, wood, free food, the number of miners,
+ * lumberjacks and idle peasants, the buildings, the peasants trained and the time the busy builders
+ * and the town hall are done. A step of the plan starts as soon as its peasant, town hall and resources
+ * are available, and harvesting is counted in whole trips of {@link Peasant#HARVEST_WAIT_TIME}.
+ *
+ * Of the plans reaching the goal at the same time the one having all the buildings the earliest is chosen.
+ *
+ * The search is an A* on the time, with the remaining training time as the bound. States are memoized
+ * by everything but the time and the stock, and a state is dropped if another with the same memo key
+ * was reached no later with at least as much gold and wood.
+ */
+public class BuildPlanner {
+
+    private static final long TRAINING_TIME = UnitType.PEASANT.buildTime;
+
+    private final List<UnitType> buildings;
+    private final int peasants;
+    private final int goalMask;
+
+    /**
+     * @param buildings Buildings to build, one of every type
+     * @param peasants Number of peasants to train
+     */
+    public BuildPlanner(Set<UnitType> buildings, int peasants){
+        // EnumSet.copyOf needs an element to know the type of an empty set
+        EnumSet<UnitType> sorted = EnumSet.noneOf(UnitType.class);
+        sorted.addAll(buildings);
+        this.buildings = List.copyOf(sorted);
+        this.peasants = peasants;
+        this.goalMask = (1 << this.buildings.size()) - 1;
+    }
+
+    /**
+     * Plans the preparation of a base in the given state.
+     *
+     * @param gold Gold in stock
+     * @param wood Wood in stock
+     * @param food Free food, the capacity limit minus the capacity in use
+     * @param miners Peasants mining gold
+     * @param lumberjacks Peasants cutting wood
+     * @param idle Peasants without a job
+     * @return The fastest plan, null if the goal can't be reached
+     */
+    public BuildPlan plan(int gold, int wood, int food, int miners, int lumberjacks, int idle){
+        State start = new State();
+        start.gold = gold;
+        start.wood = wood;
+        start.food = food;
+        start.miners = miners;
+        start.lumberjacks = lumberjacks;
+        start.idle = idle;
+        if(goalMask == 0)
+            start.built = 0;
+
+        // ties are broken by the earliest time all the buildings can be had
+        Comparator<State> order = Comparator.<State>comparingLong(state -> state.estimate)
+                .thenComparingLong(state -> state.built >= 0 ? state.built : state.time);
+        PriorityQueue<State> open = new PriorityQueue<>(order);
+        Map<Key, List<State>> reached = new HashMap<>();
+        start.estimate = bound(start);
+        open.add(start);
+        while (!open.isEmpty()) {
+            State state = open.poll();
+            if(state.dominated)
+                continue;
+            if(state.done >= 0)
+                return new BuildPlan(steps(state), state.done);
+            for (BuildPlan.Step step : BuildPlan.Step.values()) {
+                if(!useful(state, step))
+                    continue;
+                State next = apply(state, step);
+                if(next == null || isDominated(reached, next))
+                    continue;
+                if(next.mask == goalMask && next.ordered == peasants)
+                    next.done = Math.max(next.time, next.trainingDone);
+                next.estimate = next.done >= 0 ? next.done : next.time + bound(next);
+                open.add(next);
+            }
+        }
+        return null;
+    }
+
+    private boolean useful(State state, BuildPlan.Step step){
+        if(step == BuildPlan.Step.TRAIN_PEASANT)
+            return state.ordered < peasants;
+        if(step.isBuilding()) {
+            int index = buildings.indexOf(step.unitType);
+            return index >= 0 && (state.mask & (1 << index)) == 0;
+        }
+        // a new harvester only pays off while the stock doesn't cover everything still to be paid
+        int gold = (peasants - state.ordered) * UnitType.PEASANT.goldCost;
+        int wood = 0;
+        for (int i = 0; i < buildings.size(); i++) {
+            if((state.mask & (1 << i)) == 0) {
+                gold += buildings.get(i).goldCost;
+                wood += buildings.get(i).woodCost;
+            }
+        }
+        return step == BuildPlan.Step.MINE ? gold > state.gold : wood > state.wood;
+    }
+
+    /**
+     * Waits until the step can be started, then starts it.
+     *
+     * @return The state right after the step started, null if it never can be
+     */
+    private State apply(State state, BuildPlan.Step step){
+        State next = state.copy();
+        boolean training = step == BuildPlan.Step.TRAIN_PEASANT;
+        int goldCost = step.unitType == null ? 0 : step.unitType.goldCost;
+        int woodCost = step.unitType == null ? 0 : step.unitType.woodCost;
+        if(training && next.food < UnitType.PEASANT.foodCost)
+            return null;
+        // wait for the town hall or an idle peasant, only the builders and the town hall free them
+        while (training ? next.trainingDone >= 0 : next.idle == 0) {
+            long event = next.nextEvent();
+            if(event < 0)
+                return null;
+            next.advance(event);
+        }
+        long goldTrips = trips(goldCost - next.gold, next.miners);
+        long woodTrips = trips(woodCost - next.wood, next.lumberjacks);
+        if(goldTrips < 0 || woodTrips < 0)
+            return null;
+        next.advance(next.time + Math.max(goldTrips, woodTrips) * Peasant.HARVEST_WAIT_TIME);
+
+        next.gold -= goldCost;
+        next.wood -= woodCost;
+        if(training) {
+            next.food -= UnitType.PEASANT.foodCost;
+            next.ordered++;
+            next.trainingDone = next.time + TRAINING_TIME;
+        } else {
+            next.idle--;
+            switch (step) {
+                case MINE -> next.miners++;
+                case CUT_WOOD -> next.lumberjacks++;
+                default -> {
+                    next.mask |= 1 << buildings.indexOf(step.unitType);
+                    if(next.mask == goalMask)
+                        next.built = next.time;
+                    next.addBuilder(next.time + step.unitType.buildTime);
+                    if(step.unitType == UnitType.FARM)
+                        next.food += Resources.FARM_CAPACITY;
+                }
+            }
+        }
+        next.parent = state;
+        next.step = step;
+        return next;
+    }
+
+    /**
+     * @return Number of harvesting trips covering the missing amount, -1 if nobody harvests it
+     */
+    private static long trips(int missing, int harvesters){
+        if(missing <= 0)
+            return 0;
+        if(harvesters == 0)
+            return -1;
+        int perTrip = harvesters * Peasant.HARVEST_AMOUNT;
+        return (missing + perTrip - 1) / perTrip;
+    }
+
+    /**
+     * Lower bound of the time still needed: the town hall trains one peasant at a time.
+     */
+    private long bound(State state){
+        long training = state.trainingDone > state.time ? state.trainingDone - state.time : 0;
+        return training + (peasants - state.ordered) * TRAINING_TIME;
+    }
+
+    private static boolean isDominated(Map<Key, List<State>> reached, State state){
+        List<State> others = reached.computeIfAbsent(new Key(state), key -> new ArrayList<>());
+        for (State other : others) {
+            if(other.time <= state.time && other.gold >= state.gold && other.wood >= state.wood && other.built <= state.built)
+                return true;
+        }
+        others.removeIf(other -> {
+            boolean dominated = state.time <= other.time && state.gold >= other.gold && state.wood >= other.wood && state.built <= other.built;
+            if(dominated)
+                other.dominated = true;
+            return dominated;
+        });
+        others.add(state);
+        return false;
+    }
+
+    private static List<BuildPlan.Step> steps(State state){
+        List<BuildPlan.Step> steps = new ArrayList<>();
+        for (State s = state; s.parent != null; s = s.parent) {
+            steps.add(s.step);
+        }
+        Collections.reverse(steps);
+        return steps;
+    }
+
+    private static final class State {
+        private long time;
+        private int gold;
+        private int wood;
+        private int food;
+        private int miners;
+        private int lumberjacks;
+        private int idle;
+        private int mask;
+        private int ordered;
+        private long trainingDone = -1;
+        // time the last of the buildings was started, -1 while some are missing
+        private long built = -1;
+        // times the busy builders are done, in order
+        private long[] builders = new long[0];
+
+        private State parent;
+        private BuildPlan.Step step;
+        private long estimate;
+        private long done = -1;
+        private boolean dominated;
+
+        private State copy(){
+            State copy = new State();
+            copy.time = time;
+            copy.gold = gold;
+            copy.wood = wood;
+            copy.food = food;
+            copy.miners = miners;
+            copy.lumberjacks = lumberjacks;
+            copy.idle = idle;
+            copy.mask = mask;
+            copy.ordered = ordered;
+            copy.trainingDone = trainingDone;
+            copy.built = built;
+            copy.builders = builders;
+            return copy;
+        }
+
+        /**
+         * @return Time the next builder or training is done, -1 if nothing is in progress
+         */
+        private long nextEvent(){
+            long event = builders.length > 0 ? builders[0] : -1;
+            if(trainingDone >= 0 && (event < 0 || trainingDone < event))
+                event = trainingDone;
+            return event;
+        }
+
+        /**
+         * Lets the harvesters work until the given time, and frees the builders and the trained peasant done by then.
+         */
+        private void advance(long until){
+            long trips = (until - time) / Peasant.HARVEST_WAIT_TIME;
+            gold += (int) (trips * miners * Peasant.HARVEST_AMOUNT);
+            wood += (int) (trips * lumberjacks * Peasant.HARVEST_AMOUNT);
+            time = until;
+            int free = 0;
+            while (free < builders.length && builders[free] <= time) {
+                free++;
+            }
+            if(free > 0) {
+                idle += free;
+                builders = Arrays.copyOfRange(builders, free, builders.length);
+            }
+            if(trainingDone >= 0 && trainingDone <= time) {
+                idle++;
+                trainingDone = -1;
+            }
+        }
+
+        private void addBuilder(long done){
+            long[] added = Arrays.copyOf(builders, builders.length + 1);
+            added[builders.length] = done;
+            Arrays.sort(added);
+            builders = added;
+        }
+    }
+
+    /**
+     * Memo key of a state: everything but the time and the stock.
+     */
+    private static final class Key {
+        private final int mask;
+        private final int ordered;
+        private final int food;
+        private final int miners;
+        private final int lumberjacks;
+        private final int idle;
+        private final long trainingDone;
+        private final long[] builders;
+
+        private Key(State state){
+            this.mask = state.mask;
+            this.ordered = state.ordered;
+            this.food = state.food;
+            this.miners = state.miners;
+            this.lumberjacks = state.lumberjacks;
+            this.idle = state.idle;
+            this.trainingDone = state.trainingDone;
+            this.builders = state.builders;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof Key other))
+                return false;
+            return mask == other.mask && ordered == other.ordered && food == other.food && miners == other.miners
+                    && lumberjacks == other.lumberjacks && idle == other.idle && trainingDone == other.trainingDone
+                    && Arrays.equals(builders, other.builders);
+        }
+
+        @Override
+        public int hashCode(){
+            int hash = mask;
+            hash = 31 * hash + ordered;
+            hash = 31 * hash + food;
+            hash = 31 * hash + miners;
+            hash = 31 * hash + lumberjacks;
+            hash = 31 * hash + idle;
+            hash = 31 * hash + Long.hashCode(trainingDone);
+            return 31 * hash + Arrays.hashCode(builders);
+        }
+    }
+
+}
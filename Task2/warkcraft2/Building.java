@@ -18,8 +18,19 @@ public class Building extends Unit {
         return null;
     }
 
+    /**
+     * Recreates a building of a restored base, without the side effects of creating it.
+     *
+     * @param type Type of the building
+     * @param owner The restored base
+     * @return The building
+     */
+    static Building restoreBuilding(UnitType type, Base owner){
+        return new Building(owner, type);
+    }
+
     public static Building createFarm(Base owner){
-        System.out.println(owner.getName() + " is creating farm");
+        GameLog.debug(owner.getName(), "is creating farm");
         Building farm = new Building(owner, UnitType.FARM);
         // building a farm increases the capacity
         owner.getResources().farmBuilt();
@@ -27,17 +38,17 @@ public class Building extends Unit {
     }
 
     public static Building createLumbermill(Base owner){
-        System.out.println(owner.getName() + " is creating lumbermill");
+        GameLog.debug(owner.getName(), "is creating lumbermill");
         return new Building(owner, UnitType.LUMBERMILL);
     }
 
     public static Building createBlacksmith(Base owner){
-        System.out.println(owner.getName() + " is creating blacksmith");
+        GameLog.debug(owner.getName(), "is creating blacksmith");
         return new Building(owner, UnitType.BLACKSMITH);
     }
 
     public static Building createBarracks(Base owner){
-        System.out.println(owner.getName() + " is creating barracks");
+        GameLog.debug(owner.getName(), "is creating barracks");
         return new Building(owner, UnitType.BARRACKS);
     }
 }
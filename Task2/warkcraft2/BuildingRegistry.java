@@ -0,0 +1,113 @@
+package warkcraft2;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The buildings of a base, indexed by their type.
+ * Besides keeping the buildings themselves it counts them per type,
+ * so questions like "how many farms are there" are answered without
+ * scanning the buildings or taking a lock.
+ */
+public class BuildingRegistry implements Iterable<Building> {
+
+    private final List<Building> buildings = new CopyOnWriteArrayList<>();
+    // filled up in the constructor and never changed afterwards, only the counters are
+    private final Map<UnitType, AtomicInteger> counts = new EnumMap<>(UnitType.class);
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    public BuildingRegistry(){
+        for (UnitType unitType : UnitType.values()) {
+            counts.put(unitType, new AtomicInteger(0));
+        }
+    }
+
+    public void add(Building building){
+        buildings.add(building);
+        counts.get(building.getUnitType()).incrementAndGet();
+        notifyWaiters();
+    }
+
+    /**
+     * Runs the action once there are at least the required number of buildings of the given type,
+     * or right away if there are already.
+     *
+     * @param unitType Type of the building
+     * @param required Number of required amount
+     * @param action The action to run
+     */
+    public void whenBuilt(UnitType unitType, int required, Runnable action){
+        waiters.add(new Waiter(unitType, required, action));
+        notifyWaiters();
+    }
+
+    private void notifyWaiters(){
+        for (Waiter waiter : waiters) {
+            // only the thread removing the waiter runs it
+            if(hasAtLeast(waiter.unitType, waiter.required) && waiters.remove(waiter))
+                waiter.action.run();
+        }
+    }
+
+    /**
+     * @param unitType Type of the building
+     * @return Number of buildings of the given type
+     */
+    public int count(UnitType unitType){
+        return counts.get(unitType).get();
+    }
+
+    /**
+     * @param unitType Type of the building
+     * @param required Number of required amount
+     * @return true, if there are at least the required number of buildings of the given type
+     */
+    public boolean hasAtLeast(UnitType unitType, int required){
+        return count(unitType) >= required;
+    }
+
+    /**
+     * @param unitType Type of the building
+     * @param required Number of required amount
+     * @return true, if there are exactly the required number of buildings of the given type
+     */
+    public boolean hasExactly(UnitType unitType, int required){
+        return count(unitType) == required;
+    }
+
+    public int size(){
+        return buildings.size();
+    }
+
+    /**
+     * @return Read-only view of all buildings
+     */
+    public List<Building> asList(){
+        return Collections.unmodifiableList(buildings);
+    }
+
+    @Override
+    public Iterator<Building> iterator(){
+        return asList().iterator();
+    }
+
+    private static final class Waiter {
+        private final UnitType unitType;
+        private final int required;
+        private final Runnable action;
+
+        private Waiter(UnitType unitType, int required, Runnable action){
+            this.unitType = unitType;
+            this.required = required;
+            this.action = action;
+        }
+    }
+
+}
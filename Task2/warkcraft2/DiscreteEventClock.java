@@ -0,0 +1,100 @@
+package warkcraft2;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Discrete-event clock working in virtual time.
+ * Scheduled actions are kept in a priority queue ordered by their due time;
+ * the engine always jumps straight to the next event instead of waiting,
+ * so a whole match runs in a fraction of its real duration.
+ *
+ * Actions are executed one by one on the thread calling {@link #runUntil(Future)},
+ * executors passed to {@link #schedule(long, Runnable, Executor)} are not used.
+ * Actions due at the same time run in the order they were scheduled.
+ */
+public class DiscreteEventClock implements SimulationClock {
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long now;
+    private long sequence = 0;
+
+
+    @Override
+    public synchronized long now() {
+        return now;
+    }
+
+    @Override
+    public synchronized void schedule(long delay, Runnable action) {
+        events.add(new Event(now + Math.max(0, delay), sequence++, action));
+    }
+
+    @Override
+    public void schedule(long delay, Runnable action, Executor executor) {
+        schedule(delay, action);
+    }
+
+    @Override
+    public void runUntil(Future<?> done) {
+        while (!done.isDone()) {
+            Event event;
+            synchronized (this) {
+                event = events.poll();
+                if (event == null)
+                    throw new IllegalStateException("Simulation stalled at " + now + " ms: no more events to run");
+                now = event.time;
+            }
+            event.action.run();
+        }
+    }
+
+    /**
+     * Runs the events due until the given time, or until the future is completed if that happens earlier.
+     * The clock is paused afterwards, the simulation can be inspected and driven on later.
+     *
+     * @param done Future signalling the end of the simulation
+     * @param time Virtual time to stop at
+     */
+    public void runUntil(Future<?> done, long time) {
+        while (!done.isDone()) {
+            Event event;
+            synchronized (this) {
+                event = events.peek();
+                if (event == null || event.time > time) {
+                    now = Math.max(now, time);
+                    return;
+                }
+                events.poll();
+                now = event.time;
+            }
+            event.action.run();
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        events.clear();
+    }
+
+    private static final class Event implements Comparable<Event> {
+        private final long time;
+        private final long sequence;
+        private final Runnable action;
+
+        private Event(long time, long sequence, Runnable action) {
+            this.time = time;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (time != other.time)
+                return Long.compare(time, other.time);
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package warkcraft2;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Determines which threads execute the activities of the units.
+ * Only a {@link RealTimeClock} runs the activities on these threads, a {@link DiscreteEventClock}
+ * runs every activity on its own thread one by one, whatever the mode is.
+ * The task1 simulation uses the same modes for its base threads.
+ */
+public enum ExecutionMode {
+
+    /**
+     * Every activity gets a new platform thread.
+     */
+    PLATFORM,
+    /**
+     * Activities share a fixed pool of platform threads.
+     */
+    POOL;
+
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 4;
+
+    /**
+     * Creates an executor running the activities according to this mode.
+     *
+     * @param name Name prefix of the created threads
+     * @return The executor
+     */
+    public ExecutorService newExecutor(String name){
+        return switch (this) {
+            case PLATFORM -> new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), namedThreads(name));
+            case POOL -> Executors.newFixedThreadPool(POOL_SIZE, namedThreads(name));
+        };
+    }
+
+    /**
+     * Parses the mode from its name, ignoring the case.
+     *
+     * @param name Name of the mode, e.g. "pool"
+     * @return The execution mode
+     */
+    public static ExecutionMode of(String name){
+        return valueOf(name.toUpperCase());
+    }
+
+    private static ThreadFactory namedThreads(String name){
+        AtomicInteger counter = new AtomicInteger(0);
+        return runnable -> new Thread(runnable, name + "-activity-" + counter.incrementAndGet());
+    }
+
+}
@@ -2,8 +2,12 @@ package warkcraft2;
 
 public class Footman extends Personnel {
 
+    static final int HEALTH = 420;
+    static final int ATTACK_MIN = 12;
+    static final int ATTACK_MAX = 15;
+
     private Footman(Base owner) {
-        super(420, owner, 12, 15, UnitType.FOOTMAN);
+        super(HEALTH, owner, ATTACK_MIN, ATTACK_MAX, UnitType.FOOTMAN);
     }
 
     public static Footman createFootman(Base owner){
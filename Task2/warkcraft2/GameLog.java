@@ -0,0 +1,183 @@
+package warkcraft2;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous event log of the simulation.
+ * Game threads only put the parts of an event (level, subject, event, detail) into a
+ * preallocated ring buffer, a single background thread formats them and writes them
+ * to the console in batches. Events below the current level cost a single read.
+ *
+ * The level is taken from the warkcraft.log system property (debug, info or off), debug by default.
+ */
+public final class GameLog {
+
+    public enum Level {
+        /**
+         * Everything, including the events of single units.
+         */
+        DEBUG,
+        /**
+         * The events of bases and wars.
+         */
+        INFO,
+        /**
+         * Nothing is logged.
+         */
+        OFF
+    }
+
+    static final int CAPACITY = 1 << 16;
+    private static final int MASK = CAPACITY - 1;
+    private static final long IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final Slot[] slots = new Slot[CAPACITY];
+    // next sequence to be claimed by a producer
+    private static final AtomicLong tail = new AtomicLong(0);
+    // next sequence to be formatted, only changed by the consumer
+    private static volatile long head = 0;
+    // next sequence to be printed, the events before it have reached the output
+    private static volatile long written = 0;
+    private static volatile Level level = Level.valueOf(System.getProperty("warkcraft.log", "debug").toUpperCase());
+    private static volatile PrintStream out = System.out;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            slots[i] = new Slot(i);
+        }
+        Thread consumer = new Thread(GameLog::consume, "game-log");
+        consumer.setDaemon(true);
+        consumer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(GameLog::flush));
+    }
+
+    private GameLog(){
+    }
+
+    public static void setLevel(Level level){
+        GameLog.level = level;
+    }
+
+    public static Level getLevel(){
+        return level;
+    }
+
+    /**
+     * Writes the events to the given stream from now on, e.g. to capture them in a test.
+     * The events logged before are flushed to the previous stream first.
+     *
+     * @param out The stream
+     */
+    static void setOut(PrintStream out){
+        flush();
+        GameLog.out = out;
+    }
+
+    public static boolean isEnabled(Level level){
+        return level.compareTo(GameLog.level) >= 0 && level != Level.OFF;
+    }
+
+    public static void debug(String subject, String event){
+        log(Level.DEBUG, subject, event, null);
+    }
+
+    public static void debug(String subject, String event, Object detail){
+        log(Level.DEBUG, subject, event, detail);
+    }
+
+    public static void info(String subject, String event){
+        log(Level.INFO, subject, event, null);
+    }
+
+    public static void info(String subject, String event, Object detail){
+        log(Level.INFO, subject, event, detail);
+    }
+
+    /**
+     * Logs an event, written out as "subject event detail".
+     *
+     * @param level Level of the event
+     * @param subject Who the event happened to, e.g. the name of a base, may be null
+     * @param event What happened
+     * @param detail Additional detail, may be null
+     */
+    public static void log(Level level, String subject, String event, Object detail){
+        if(!isEnabled(level))
+            return;
+        long sequence = tail.getAndIncrement();
+        Slot slot = slots[(int) (sequence & MASK)];
+        // the buffer is full, wait for the consumer to free the slot
+        while (slot.sequence != sequence) {
+            Thread.onSpinWait();
+        }
+        slot.subject = subject;
+        slot.event = event;
+        slot.detail = detail;
+        slot.sequence = sequence + 1;
+    }
+
+    /**
+     * Waits until every event logged before the call has been written out.
+     */
+    public static void flush(){
+        long target = tail.get();
+        while (written < target) {
+            LockSupport.parkNanos(IDLE_WAIT);
+        }
+        out.flush();
+    }
+
+    private static void consume(){
+        StringBuilder batch = new StringBuilder(8192);
+        while (true) {
+            long next = head;
+            Slot slot = slots[(int) (next & MASK)];
+            if(slot.sequence != next + 1) {
+                if(batch.length() > 0) {
+                    out.print(batch);
+                    out.flush();
+                    batch.setLength(0);
+                    written = next;
+                }
+                LockSupport.parkNanos(IDLE_WAIT);
+                continue;
+            }
+            format(batch, slot);
+            slot.subject = null;
+            slot.event = null;
+            slot.detail = null;
+            slot.sequence = next + CAPACITY;
+            head = next + 1;
+            if(batch.length() >= 8192) {
+                out.print(batch);
+                batch.setLength(0);
+                written = next + 1;
+            }
+        }
+    }
+
+    private static void format(StringBuilder batch, Slot slot){
+        if(slot.subject != null)
+            batch.append(slot.subject).append(' ');
+        batch.append(slot.event);
+        if(slot.detail != null)
+            batch.append(' ').append(slot.detail);
+        batch.append(System.lineSeparator());
+    }
+
+    private static final class Slot {
+        // sequence + 1 when the slot holds the event of that sequence, sequence when it is free for it
+        private volatile long sequence;
+        private String subject;
+        private String event;
+        private Object detail;
+
+        private Slot(long sequence){
+            this.sequence = sequence;
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package warkcraft2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Binary snapshot of a paused match, written to and read from a memory-mapped file.
+ * It holds everything needed to continue the match: the resources, buildings, units with their
+ * health and jobs of both bases, and the remaining time of the preparation, the buildings under
+ * construction and the trainings. Restoring reads the fixed-width records straight from the mapping,
+ * so forking experiments from a checkpoint costs far less than playing up to it again.
+ *
+ * Layout: magic, version, simulation time, battle seed, then the two bases, see {@link Base#writeTo(ByteBuffer)}.
+ */
+public final class GameSnapshot {
+
+    private static final int MAGIC = 0x574B534E;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES;
+
+    private GameSnapshot(){
+    }
+
+    /**
+     * Writes the snapshot of a match paused with {@link Match#playUntil(long)}.
+     *
+     * @param match The paused match
+     * @param file The file to write, replaced if it exists
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Match match, Path file) throws IOException {
+        Base first = match.getFirst();
+        Base second = match.getSecond();
+        // units that have fallen but aren't reaped yet are not written
+        first.reapDeaths();
+        second.reapDeaths();
+        int size = HEADER_SIZE + first.snapshotSize() + second.snapshotSize();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(match.getTime()).putLong(match.getBattleSeed());
+            first.writeTo(buffer);
+            second.writeTo(buffer);
+            buffer.force();
+        }
+    }
+
+    /**
+     * Restores a match from a snapshot, it continues where it was paused when {@link Match#play()} is called.
+     *
+     * @param file The snapshot file
+     * @param clock Clock driving the restored match, its time is counted from the moment of the snapshot
+     * @param executionMode How the activities of the bases are executed
+     * @param battleMode Battle mode of the match, see {@link Match}
+     * @param seed Seed of the random streams of the restored units, different seeds fork different experiments
+     * @return The restored match
+     * @throws IOException if the file can't be read or isn't a snapshot
+     */
+    public static Match restore(Path file, SimulationClock clock, ExecutionMode executionMode, String battleMode, long seed) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+                throw new IOException("Not a snapshot: " + file);
+            int version = buffer.getInt();
+            if(version != VERSION)
+                throw new IOException("Unsupported snapshot version: " + version);
+            long time = buffer.getLong();
+            long battleSeed = buffer.getLong();
+            SplittableRandom seeds = new SplittableRandom(seed);
+            Base first = Base.readFrom(buffer, clock, executionMode, seeds.nextLong());
+            Base second = Base.readFrom(buffer, clock, executionMode, seeds.nextLong());
+            return new Match(first, second, clock, battleMode, battleSeed, time);
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package warkcraft2;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Unit storage keeping every field of the combatants in its own primitive array.
+ */
+public class HeapUnitStorage implements UnitStorage {
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private int count = 0;
+    private int[] health;
+    private int[] attackMin;
+    private int[] attackMax;
+    private byte[] side;
+    private int[] target;
+    private int[] damage;
+    private int[] flags;
+
+    public HeapUnitStorage(int capacity){
+        capacity = Math.max(capacity, 1);
+        health = new int[capacity];
+        attackMin = new int[capacity];
+        attackMax = new int[capacity];
+        side = new byte[capacity];
+        target = new int[capacity];
+        damage = new int[capacity];
+        flags = new int[capacity];
+    }
+
+    @Override
+    public int add(int side, int health, int attackMin, int attackMax){
+        if(count == this.health.length)
+            grow();
+        int unit = count++;
+        this.health[unit] = health;
+        this.attackMin[unit] = attackMin;
+        this.attackMax[unit] = attackMax;
+        this.side[unit] = (byte) side;
+        this.target[unit] = -1;
+        return unit;
+    }
+
+    @Override
+    public int size(){
+        return count;
+    }
+
+    @Override
+    public int getSide(int unit){
+        return side[unit];
+    }
+
+    @Override
+    public int getAttackMin(int unit){
+        return attackMin[unit];
+    }
+
+    @Override
+    public int getAttackMax(int unit){
+        return attackMax[unit];
+    }
+
+    @Override
+    public int getHealth(int unit){
+        return health[unit];
+    }
+
+    @Override
+    public int getAndAddHealth(int unit, int delta){
+        return (int) INTS.getAndAdd(health, unit, delta);
+    }
+
+    @Override
+    public void addDamage(int unit, int amount){
+        damage[unit] += amount;
+    }
+
+    @Override
+    public void addDamageAtomically(int unit, int amount){
+        INTS.getAndAdd(damage, unit, amount);
+    }
+
+    @Override
+    public int takeDamage(int unit){
+        int taken = damage[unit];
+        damage[unit] = 0;
+        return taken;
+    }
+
+    @Override
+    public int getTarget(int unit){
+        return target[unit];
+    }
+
+    @Override
+    public void setTarget(int unit, int target){
+        this.target[unit] = target;
+    }
+
+    @Override
+    public int getFlags(int unit){
+        return (int) INTS.getVolatile(flags, unit);
+    }
+
+    @Override
+    public boolean setFlag(int unit, int flag){
+        int current = (int) INTS.getVolatile(flags, unit);
+        while ((current & flag) == 0) {
+            int witness = (int) INTS.compareAndExchange(flags, unit, current, current | flag);
+            if(witness == current)
+                return true;
+            current = witness;
+        }
+        return false;
+    }
+
+    private void grow(){
+        int capacity = health.length * 2;
+        health = Arrays.copyOf(health, capacity);
+        attackMin = Arrays.copyOf(attackMin, capacity);
+        attackMax = Arrays.copyOf(attackMax, capacity);
+        side = Arrays.copyOf(side, capacity);
+        target = Arrays.copyOf(target, capacity);
+        damage = Arrays.copyOf(damage, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+
+}
@@ -0,0 +1,113 @@
+package warkcraft2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Append-only binary journal of a match: every attack, death and resource change.
+ * Records have a fixed width and are collected in a direct buffer, which is written to the
+ * file channel only when it is full or the journal is flushed, so recording an event costs
+ * a short uncontended lock and a few stores. {@link JournalReplay} reads the journal back.
+ *
+ * Layout: magic, version, number of bases, the names of the bases, then the records:
+ * time (long), type, base, target base, padding (bytes), unit, target unit, three values (ints).
+ */
+public class Journal implements AutoCloseable {
+
+    static final int MAGIC = 0x574B4A4E;
+    static final int VERSION = 1;
+    static final int RECORD_SIZE = 32;
+
+    /**
+     * A unit attacked: unit of base hit target of target base, first value is the damage.
+     */
+    public static final byte ATTACK = 1;
+    /**
+     * A unit of base died, first value is the ordinal of its unit type.
+     */
+    public static final byte DEATH = 2;
+    /**
+     * The resources of base changed, the values are the gold, wood and capacity change.
+     */
+    public static final byte RESOURCES = 3;
+
+    private static final int BUFFER_RECORDS = 2048;
+
+    private final SimulationClock clock;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+
+    /**
+     * @param file The file to write, replaced if it exists
+     * @param clock Clock of the match, the records are stamped with its time
+     * @param bases Names of the bases, the records refer to them by their index
+     * @throws IOException if the file can't be created
+     */
+    public Journal(Path file, SimulationClock clock, List<String> bases) throws IOException {
+        this.clock = clock;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(bases.size());
+        for (String base : bases) {
+            byte[] name = base.getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) name.length).put(name);
+        }
+        flush();
+    }
+
+    public void attack(int base, int unit, int targetBase, int target, int damage){
+        append(ATTACK, base, unit, targetBase, target, damage, 0, 0);
+    }
+
+    public void death(int base, int unit, UnitType unitType){
+        append(DEATH, base, unit, base, unit, unitType.ordinal(), 0, 0);
+    }
+
+    public void resources(int base, int gold, int wood, int capacity){
+        append(RESOURCES, base, -1, base, -1, gold, wood, capacity);
+    }
+
+    private synchronized void append(byte type, int base, int unit, int targetBase, int target, int first, int second, int third){
+        if(!channel.isOpen())
+            return;
+        if(buffer.remaining() < RECORD_SIZE)
+            flush();
+        buffer.putLong(clock.now())
+                .put(type).put((byte) base).put((byte) targetBase).put((byte) 0)
+                .putInt(unit).putInt(target)
+                .putInt(first).putInt(second).putInt(third);
+    }
+
+    /**
+     * Writes the collected records to the file.
+     */
+    public synchronized void flush(){
+        try {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close(){
+        if(!channel.isOpen())
+            return;
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
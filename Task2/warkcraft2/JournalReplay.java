@@ -0,0 +1,256 @@
+package warkcraft2;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a {@link Journal} back and rebuilds the timeline of the match.
+ * The records are read straight from a memory mapping of the file without waiting for the
+ * recorded times, so a whole battle is replayed in a fraction of its duration.
+ *
+ * Run with the journal file as argument; the events are printed one by one when
+ * warkcraft.replay.events is true, the summary of the bases is always printed.
+ */
+public final class JournalReplay {
+
+    private JournalReplay(){
+    }
+
+    /**
+     * Receives the replayed records in the order they were written.
+     */
+    public interface Listener {
+
+        void attack(long time, int base, int unit, int targetBase, int target, int damage);
+
+        void death(long time, int base, int unit, UnitType unitType);
+
+        void resources(long time, int base, int gold, int wood, int capacity);
+
+    }
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 1) {
+            System.err.println("Usage: JournalReplay <journal file>");
+            return;
+        }
+        Path file = Path.of(args[0]);
+        List<String> bases = readBases(file);
+        Summary summary = new Summary(bases);
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16));
+        Listener listener = summary;
+        if(Boolean.getBoolean("warkcraft.replay.events"))
+            listener = both(new Printer(bases, out), summary);
+        long start = System.nanoTime();
+        int records = replay(file, listener);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        out.println(summary);
+        out.println("Replayed " + records + " records in " + elapsed + " ms");
+        out.flush();
+    }
+
+    /**
+     * @param file The journal file
+     * @return Names of the bases in the order of their index
+     * @throws IOException if the file can't be read or isn't a journal
+     */
+    public static List<String> readBases(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readHeader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file);
+        }
+    }
+
+    /**
+     * Replays every record of the journal.
+     *
+     * @param file The journal file
+     * @param listener Receives the records
+     * @return Number of records replayed
+     * @throws IOException if the file can't be read or isn't a journal
+     */
+    public static int replay(Path file, Listener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readHeader(buffer, file);
+            UnitType[] unitTypes = UnitType.values();
+            int records = 0;
+            while (buffer.remaining() >= Journal.RECORD_SIZE) {
+                long time = buffer.getLong();
+                byte type = buffer.get();
+                int base = buffer.get();
+                int targetBase = buffer.get();
+                buffer.get();
+                int unit = buffer.getInt();
+                int target = buffer.getInt();
+                int first = buffer.getInt();
+                int second = buffer.getInt();
+                int third = buffer.getInt();
+                switch (type) {
+                    case Journal.ATTACK -> listener.attack(time, base, unit, targetBase, target, first);
+                    case Journal.DEATH -> listener.death(time, base, unit, unitTypes[first]);
+                    case Journal.RESOURCES -> listener.resources(time, base, first, second, third);
+                    default -> throw new IOException("Unknown record type " + type + " in " + file);
+                }
+                records++;
+            }
+            return records;
+        }
+    }
+
+    private static List<String> readHeader(ByteBuffer buffer, Path file) throws IOException {
+        if(buffer.remaining() < 3 * Integer.BYTES || buffer.getInt() != Journal.MAGIC)
+            throw new IOException("Not a journal: " + file);
+        int version = buffer.getInt();
+        if(version != Journal.VERSION)
+            throw new IOException("Unsupported journal version: " + version);
+        List<String> bases = new ArrayList<>();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            bases.add(new String(name, StandardCharsets.UTF_8));
+        }
+        return Collections.unmodifiableList(bases);
+    }
+
+    private static Listener both(Listener first, Listener second){
+        return new Listener() {
+            @Override
+            public void attack(long time, int base, int unit, int targetBase, int target, int damage){
+                first.attack(time, base, unit, targetBase, target, damage);
+                second.attack(time, base, unit, targetBase, target, damage);
+            }
+
+            @Override
+            public void death(long time, int base, int unit, UnitType unitType){
+                first.death(time, base, unit, unitType);
+                second.death(time, base, unit, unitType);
+            }
+
+            @Override
+            public void resources(long time, int base, int gold, int wood, int capacity){
+                first.resources(time, base, gold, wood, capacity);
+                second.resources(time, base, gold, wood, capacity);
+            }
+        };
+    }
+
+    /**
+     * Prints every record as a line of the timeline.
+     */
+    private static final class Printer implements Listener {
+        private final List<String> bases;
+        private final PrintWriter out;
+
+        private Printer(List<String> bases, PrintWriter out){
+            this.bases = bases;
+            this.out = out;
+        }
+
+        @Override
+        public void attack(long time, int base, int unit, int targetBase, int target, int damage){
+            out.printf("%8d %s#%d hits %s#%d for %d%n", time, bases.get(base), unit, bases.get(targetBase), target, damage);
+        }
+
+        @Override
+        public void death(long time, int base, int unit, UnitType unitType){
+            out.printf("%8d %s#%d (%s) died%n", time, bases.get(base), unit, unitType);
+        }
+
+        @Override
+        public void resources(long time, int base, int gold, int wood, int capacity){
+            out.printf("%8d %s resources gold %+d wood %+d capacity %+d%n", time, bases.get(base), gold, wood, capacity);
+        }
+    }
+
+    /**
+     * Totals of every base over the replayed records.
+     */
+    public static final class Summary implements Listener {
+        private final List<String> bases;
+        private final long[] attacks;
+        private final long[] damage;
+        private final long[] deaths;
+        private final long[] gold;
+        private final long[] wood;
+        private final long[] capacity;
+        private long firstAttack = -1;
+        private long lastDeath = -1;
+
+        public Summary(List<String> bases){
+            this.bases = bases;
+            this.attacks = new long[bases.size()];
+            this.damage = new long[bases.size()];
+            this.deaths = new long[bases.size()];
+            this.gold = new long[bases.size()];
+            this.wood = new long[bases.size()];
+            this.capacity = new long[bases.size()];
+        }
+
+        @Override
+        public void attack(long time, int base, int unit, int targetBase, int target, int damage){
+            if(firstAttack < 0)
+                firstAttack = time;
+            attacks[base]++;
+            this.damage[base] += damage;
+        }
+
+        @Override
+        public void death(long time, int base, int unit, UnitType unitType){
+            lastDeath = time;
+            deaths[base]++;
+        }
+
+        @Override
+        public void resources(long time, int base, int gold, int wood, int capacity){
+            this.gold[base] += gold;
+            this.wood[base] += wood;
+            this.capacity[base] += capacity;
+        }
+
+        public long getAttacks(int base){
+            return attacks[base];
+        }
+
+        public long getDamage(int base){
+            return damage[base];
+        }
+
+        public long getDeaths(int base){
+            return deaths[base];
+        }
+
+        /**
+         * @return Time from the first attack until the last death, -1 if there was no fight
+         */
+        public long getBattleDuration(){
+            return firstAttack < 0 || lastDeath < 0 ? -1 : lastDeath - firstAttack;
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder sb = new StringBuilder();
+            sb.append("Battle: from ").append(firstAttack).append(" ms, lasted ").append(getBattleDuration()).append(" ms");
+            for (int base = 0; base < bases.size(); base++) {
+                sb.append(System.lineSeparator()).append(bases.get(base))
+                        .append(": attacks ").append(attacks[base])
+                        .append(", damage dealt ").append(damage[base])
+                        .append(", deaths ").append(deaths[base])
+                        .append(", resource change gold ").append(gold[base])
+                        .append(" wood ").append(wood[base])
+                        .append(" capacity ").append(capacity[base]);
+            }
+            return sb.toString();
+        }
+    }
+
+}
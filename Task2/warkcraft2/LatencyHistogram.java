@@ -0,0 +1,105 @@
+package warkcraft2;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations with power of two buckets.
+ * Recording a value is a few atomic increments without any lock, so it can be done from every activity;
+ * the percentiles are only as precise as the bucket the value falls into.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    // bucket i counts the values in [2^(i-1), 2^i), bucket 0 counts the zeros
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * @param value Duration in milliseconds, negative values are counted as 0
+     */
+    public void record(long value){
+        value = Math.max(value, 0);
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+        count.increment();
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // another thread has raised the maximum, try again
+        }
+    }
+
+    public Snapshot snapshot(){
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(count.sum(), sum.sum(), max.get(), counts);
+    }
+
+    /**
+     * Values of the histogram at one point of time.
+     */
+    public static final class Snapshot {
+        private final long count;
+        private final long sum;
+        private final long max;
+        private final long[] counts;
+
+        private Snapshot(long count, long sum, long max, long[] counts){
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+            this.counts = counts;
+        }
+
+        public long getCount(){
+            return count;
+        }
+
+        public double getMean(){
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        public long getMax(){
+            return max;
+        }
+
+        public long getMedian(){
+            return percentile(0.5);
+        }
+
+        public long getP99(){
+            return percentile(0.99);
+        }
+
+        /**
+         * @param fraction Fraction of the values, between 0 and 1
+         * @return Upper bound of the bucket containing the given fraction of the values, never more than the maximum
+         */
+        public long percentile(double fraction){
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if(seen >= rank && seen > 0)
+                    return i == 0 ? 0 : Math.min((1L << i) - 1, max);
+            }
+            return max;
+        }
+
+        @Override
+        public String toString(){
+            return "count=" + count + " mean=" + String.format("%.1f", getMean()) + " p50=" + getMedian() + " p99=" + getP99() + " max=" + max;
+        }
+    }
+
+}
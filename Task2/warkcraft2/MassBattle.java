@@ -0,0 +1,304 @@
+package warkcraft2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Phaser;
+
+/**
+ * Battle engine for mass battles between two sides.
+ * Instead of every soldier attacking on its own schedule, the health, attack range and
+ * side of every combatant are kept in primitive arrays and the battle is resolved in rounds:
+ * in each round every living soldier attacks once, the damage is accumulated per target,
+ * then applied in one pass which also removes the dead from the living ones.
+ *
+ * Like in {@link Base#goToWar(Roster)} a soldier keeps attacking its opponent until it dies,
+ * then picks a new random one. A round corresponds to one attack wait time of the threaded war.
+ * Nothing is allocated while the battle runs.
+ *
+ * The attacks of a round can be computed in parallel on a {@link ForkJoinPool}: the living soldiers
+ * of both sides are split between the workers, and a {@link Phaser} closes the round once every
+ * worker is done, applying the damage before the next round starts. Random numbers are derived
+ * from the seed, the round and the attacker, so the outcome only depends on the seed and not on
+ * the number of threads.
+ *
+ * The combatants are kept in a {@link UnitStorage}. For battles of millions of soldiers
+ * an {@link OffHeapUnitStorage} keeps them out of the heap, so the garbage collector does not see them.
+ * A war fought by {@link #fight(Base, Base, long, ForkJoinPool, String)} closes its storage when it is over.
+ */
+public class MassBattle {
+
+    public static final int FIRST = 0;
+    public static final int SECOND = 1;
+    public static final int DRAW = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long seed;
+    private final UnitStorage units;
+    // personnel the combatants were created from, null entries for combatants added by their stats,
+    // only allocated once an army is added
+    private Personnel[] personnel;
+
+    // indexes of the living combatants per side, compacted after every round
+    private final int[][] alive = {new int[INITIAL_CAPACITY], new int[INITIAL_CAPACITY]};
+    private final int[] aliveCount = new int[2];
+
+    private int rounds = 0;
+
+    public MassBattle(long seed){
+        this(seed, new HeapUnitStorage(INITIAL_CAPACITY));
+    }
+
+    /**
+     * @param seed Seed of the battle
+     * @param units Empty storage of the combatants
+     */
+    public MassBattle(long seed, UnitStorage units){
+        this.seed = seed;
+        this.units = units;
+    }
+
+    /**
+     * Fights a war between two bases and applies the outcome to their armies:
+     * the fallen personnel die the usual way, through their base.
+     *
+     * @param first First base
+     * @param second Second base
+     * @param seed Seed of the battle
+     */
+    public static void fight(Base first, Base second, long seed){
+        fight(first, second, seed, null, "heap");
+    }
+
+    /**
+     * Fights a war between two bases, keeping the combatants in the given kind of storage,
+     * and applies the outcome to their armies. The pool is shared, e.g. the common pool,
+     * so matches fought at the same time don't each start threads of their own.
+     *
+     * @param first First base
+     * @param second Second base
+     * @param seed Seed of the battle
+     * @param pool Pool computing the attacks, null to compute them on the calling thread
+     * @param storage Kind of the storage of the combatants, see {@link UnitStorage#create(String, int)}
+     */
+    public static void fight(Base first, Base second, long seed, ForkJoinPool pool, String storage){
+        int winner;
+        try (UnitStorage units = UnitStorage.create(storage, first.getArmy().size() + second.getArmy().size())) {
+            MassBattle battle = new MassBattle(seed, units);
+            battle.addArmy(FIRST, first.getArmy());
+            battle.addArmy(SECOND, second.getArmy());
+            winner = pool == null ? battle.run() : battle.run(pool);
+            battle.applyToPersonnel();
+        }
+        // the battle is over in one step, the fallen are removed before the result is announced
+        first.reapDeaths();
+        second.reapDeaths();
+        if(winner == FIRST)
+            first.signalEnemyDefeated();
+        else if(winner == SECOND)
+            second.signalEnemyDefeated();
+    }
+
+    /**
+     * Adds a combatant.
+     *
+     * @param side FIRST or SECOND
+     * @param health Health of the combatant
+     * @param attackMin Minimum attack
+     * @param attackMax Attack range, see {@link Personnel#getAttack()}
+     * @return Index of the combatant
+     */
+    public int addUnit(int side, int health, int attackMin, int attackMax){
+        if(side != FIRST && side != SECOND)
+            throw new IllegalArgumentException("Unknown side: " + side);
+        int unit = units.add(side, health, attackMin, attackMax);
+        if(health > 0) {
+            if(aliveCount[side] == alive[side].length)
+                alive[side] = Arrays.copyOf(alive[side], aliveCount[side] * 2);
+            alive[side][aliveCount[side]++] = unit;
+        }
+        return unit;
+    }
+
+    /**
+     * Adds every personnel of an army as a combatant.
+     *
+     * @param side FIRST or SECOND
+     * @param army The army
+     */
+    public void addArmy(int side, Roster<Personnel> army){
+        for (Personnel p : army) {
+            int unit = addUnit(side, p.getHealth(), p.getAttackMin(), p.getAttackMax());
+            if(personnel == null)
+                personnel = new Personnel[Math.max(INITIAL_CAPACITY, unit + 1)];
+            else if(unit >= personnel.length)
+                personnel = Arrays.copyOf(personnel, Math.max(personnel.length * 2, unit + 1));
+            personnel[unit] = p;
+        }
+    }
+
+    /**
+     * Fights rounds until at least one of the sides is wiped out.
+     *
+     * @return The winning side, DRAW if both sides were wiped out
+     */
+    public int run(){
+        while (aliveCount[FIRST] > 0 && aliveCount[SECOND] > 0) {
+            attack(FIRST, 0, aliveCount[FIRST], false);
+            attack(SECOND, 0, aliveCount[SECOND], false);
+            finishRound();
+        }
+        return winner();
+    }
+
+    /**
+     * Fights rounds until at least one of the sides is wiped out,
+     * computing the attacks of every round on the threads of the pool.
+     * Gives the same result as {@link #run()} for the same seed.
+     *
+     * @param pool The pool, every one of its threads gets a share of the soldiers
+     * @return The winning side, DRAW if both sides were wiped out
+     */
+    public int run(ForkJoinPool pool){
+        if(aliveCount[FIRST] == 0 || aliveCount[SECOND] == 0)
+            return winner();
+        int workers = pool.getParallelism();
+        Phaser phaser = new Phaser(workers) {
+            @Override
+            protected boolean onAdvance(int phase, int registeredParties) {
+                // runs on the last worker finishing the round, the others are waiting
+                finishRound();
+                return aliveCount[FIRST] == 0 || aliveCount[SECOND] == 0;
+            }
+        };
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            int worker = w;
+            tasks.add(pool.submit(() -> {
+                do {
+                    attack(FIRST, share(FIRST, worker, workers), share(FIRST, worker + 1, workers), true);
+                    attack(SECOND, share(SECOND, worker, workers), share(SECOND, worker + 1, workers), true);
+                } while (phaser.arriveAndAwaitAdvance() >= 0);
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return winner();
+    }
+
+    private int winner(){
+        if(aliveCount[FIRST] > 0)
+            return FIRST;
+        if(aliveCount[SECOND] > 0)
+            return SECOND;
+        return DRAW;
+    }
+
+    /**
+     * Moves the health values of the battle back to the personnel the combatants were created from.
+     */
+    public void applyToPersonnel(){
+        if(personnel == null)
+            return;
+        for (int unit = 0; unit < Math.min(units.size(), personnel.length); unit++) {
+            Personnel p = personnel[unit];
+            if(p == null)
+                continue;
+            int lost = p.getHealth() - Math.max(units.getHealth(unit), 0);
+            if(lost > 0)
+                p.loseHealth(lost);
+        }
+    }
+
+    public int getSurvivors(int side){
+        return aliveCount[side];
+    }
+
+    public int getRounds(){
+        return rounds;
+    }
+
+    public int getHealth(int unit){
+        return units.getHealth(unit);
+    }
+
+    /**
+     * Attacks with a range of the living soldiers of a side.
+     *
+     * @param attackerSide Side of the attackers
+     * @param from First position in the side's living list, inclusive
+     * @param to Last position in the side's living list, exclusive
+     * @param concurrent true, if other threads add damage at the same time
+     */
+    private void attack(int attackerSide, int from, int to, boolean concurrent){
+        int[] attackers = alive[attackerSide];
+        int[] enemies = alive[1 - attackerSide];
+        int enemyCount = aliveCount[1 - attackerSide];
+        for (int i = from; i < to; i++) {
+            int attacker = attackers[i];
+            int opponent = units.getTarget(attacker);
+            // everyone on the living list is alive during the attacks, the dead are removed after the round
+            if(opponent < 0 || units.getHealth(opponent) <= 0) {
+                opponent = enemies[nextInt(attacker, 0, enemyCount)];
+                units.setTarget(attacker, opponent);
+            }
+            int attack = nextInt(attacker, 1, units.getAttackMax(attacker)) + units.getAttackMin(attacker);
+            if(concurrent)
+                units.addDamageAtomically(opponent, attack);
+            else
+                units.addDamage(opponent, attack);
+        }
+    }
+
+    private void finishRound(){
+        applyDamage(FIRST);
+        applyDamage(SECOND);
+        rounds++;
+    }
+
+    private int share(int side, int worker, int workers){
+        return (int) ((long) aliveCount[side] * worker / workers);
+    }
+
+    /**
+     * Random number for one draw of an attacker in the current round.
+     * Depends only on the seed, the round, the attacker and the draw,
+     * so it is the same no matter which thread computes the attack.
+     *
+     * @param attacker Index of the attacker
+     * @param draw Number of the draw within the attack
+     * @param bound Upper bound, exclusive
+     * @return Random number between 0 and bound
+     */
+    private int nextInt(int attacker, int draw, int bound){
+        long z = seed + 0x9E3779B97F4A7C15L * ((((long) rounds << 32) | attacker) * 2 + draw + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) (((z >>> 32) * bound) >>> 32);
+    }
+
+    private void applyDamage(int defenderSide){
+        int[] defenders = alive[defenderSide];
+        int i = 0;
+        while (i < aliveCount[defenderSide]) {
+            int unit = defenders[i];
+            int taken = units.takeDamage(unit);
+            if(taken == 0) {
+                i++;
+                continue;
+            }
+            int before = units.getAndAddHealth(unit, -taken);
+            if(before - taken <= 0 && units.setFlag(unit, UnitStorage.FALLEN)) {
+                defenders[i] = defenders[--aliveCount[defenderSide]];
+            } else {
+                i++;
+            }
+        }
+    }
+
+}
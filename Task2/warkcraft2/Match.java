@@ -0,0 +1,216 @@
+package warkcraft2;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * One game between two bases: both prepare, assemble their armies and go to war.
+ * A match owns its clock and its bases, nothing is shared with other matches,
+ * so any number of them can be played at the same time.
+ */
+public class Match {
+
+    // "heap" or "offheap", where a mass battle keeps its soldiers
+    private static final String BATTLE_STORAGE = System.getProperty("warkcraft.battle.storage", "heap");
+
+    private final SimulationClock clock;
+    private final String battleMode;
+    private final long battleSeed;
+    private final Base first;
+    private final Base second;
+    // simulation time played before the match was restored from a snapshot
+    private final long offset;
+    private CompletableFuture<Void> war;
+    private TargetingStrategy targeting = TargetingStrategy.RANDOM;
+    private String battleStorage = BATTLE_STORAGE;
+
+    /**
+     * @param firstName Name of the first base
+     * @param secondName Name of the second base
+     * @param clock Clock driving the match, used only by this match
+     * @param executionMode How the activities of the bases are executed
+     * @param battleMode "threaded" to let every unit fight on its own, "mass" or "parallel" to resolve the war with {@link MassBattle}
+     * @param seed Seed of every random number of the match
+     */
+    public Match(String firstName, String secondName, SimulationClock clock, ExecutionMode executionMode, String battleMode, long seed){
+        this.clock = clock;
+        this.battleMode = battleMode;
+        // the bases, their units and the mass battle all derive their random numbers from the seed
+        SplittableRandom seeds = new SplittableRandom(seed);
+        this.first = new Base(firstName, clock, executionMode, seeds.nextLong());
+        this.second = new Base(secondName, clock, executionMode, seeds.nextLong());
+        this.battleSeed = seeds.nextLong();
+        this.offset = 0;
+    }
+
+    /**
+     * Continues a match restored from a snapshot.
+     *
+     * @param first The restored first base
+     * @param second The restored second base
+     * @param clock Clock driving the restored match
+     * @param battleMode Battle mode of the match
+     * @param battleSeed Seed of the mass battle
+     * @param offset Simulation time played before the snapshot was taken
+     */
+    Match(Base first, Base second, SimulationClock clock, String battleMode, long battleSeed, long offset){
+        this.first = first;
+        this.second = second;
+        this.clock = clock;
+        this.battleMode = battleMode;
+        this.battleSeed = battleSeed;
+        this.offset = offset;
+    }
+
+    /**
+     * Plays the match until the war is over, then stops the clock and closes both bases.
+     *
+     * @return The outcome of the match
+     */
+    public Result play(){
+        start();
+        try {
+            clock.runUntil(war);
+        } finally {
+            clock.shutdown();
+            first.close();
+            second.close();
+        }
+        return new Result(this);
+    }
+
+    /**
+     * Plays the match until the given simulation time and pauses it there, e.g. to take a {@link GameSnapshot}.
+     * Only a match on a {@link DiscreteEventClock} can be paused.
+     *
+     * @param time Simulation time to pause at
+     * @return true, if the war is already over
+     */
+    public boolean playUntil(long time){
+        if(!(clock instanceof DiscreteEventClock discreteClock))
+            throw new IllegalStateException("Only a match in virtual time can be paused");
+        start();
+        discreteClock.runUntil(war, time - offset);
+        return war.isDone();
+    }
+
+    /**
+     * @return Simulation time since the start of the match
+     */
+    public long getTime(){
+        return offset + clock.now();
+    }
+
+    /**
+     * Records the events of both bases in the journal, the first base has index 0, the second 1.
+     *
+     * @param journal The journal of the match
+     */
+    public void setJournal(Journal journal){
+        first.setJournal(journal, 0);
+        second.setJournal(journal, 1);
+    }
+
+    /**
+     * @param targeting How the soldiers choose their opponents, random by default
+     */
+    public void setTargeting(TargetingStrategy targeting){
+        this.targeting = targeting;
+    }
+
+    /**
+     * @param battleStorage Where a mass battle keeps its soldiers, see {@link UnitStorage#create(String, int)},
+     *                      the warkcraft.battle.storage property by default
+     */
+    public void setBattleStorage(String battleStorage){
+        this.battleStorage = battleStorage;
+    }
+
+    long getBattleSeed(){
+        return battleSeed;
+    }
+
+    private void start(){
+        if(war != null)
+            return;
+        CompletableFuture<Void> firstReady = first.startPreparation().thenRun(first::assembleArmy);
+        CompletableFuture<Void> secondReady = second.startPreparation().thenRun(second::assembleArmy);
+
+        war = CompletableFuture.allOf(firstReady, secondReady).thenCompose(ready -> {
+            GameLog.info(null, "Both bases finished their war preparation and assembled their armies");
+            if(battleMode.equals("mass") || battleMode.equals("parallel")) {
+                ForkJoinPool pool = battleMode.equals("parallel") ? ForkJoinPool.commonPool() : null;
+                MassBattle.fight(first, second, battleSeed, pool, battleStorage);
+                first.announceFightResult();
+                second.announceFightResult();
+                return CompletableFuture.completedFuture(null);
+            }
+            // Both armies are sent to war from the same action, so they attack at the same time
+            if(targeting == TargetingStrategy.RANDOM)
+                return CompletableFuture.allOf(first.goToWar(second.getArmy()), second.goToWar(first.getArmy()));
+            return CompletableFuture.allOf(first.goToWar(targeting.opponents(List.of(second))),
+                    second.goToWar(targeting.opponents(List.of(first))));
+        });
+    }
+
+    public Base getFirst(){
+        return first;
+    }
+
+    public Base getSecond(){
+        return second;
+    }
+
+    /**
+     * Outcome of a played match.
+     */
+    public static final class Result {
+        private final String winner;
+        private final long duration;
+        private final int firstArmy;
+        private final int secondArmy;
+
+        private Result(Match match){
+            this.firstArmy = match.first.getArmy().size();
+            this.secondArmy = match.second.getArmy().size();
+            if(firstArmy > 0 && secondArmy == 0)
+                this.winner = match.first.getName();
+            else if(secondArmy > 0 && firstArmy == 0)
+                this.winner = match.second.getName();
+            else
+                this.winner = null;
+            this.duration = match.getTime();
+        }
+
+        /**
+         * @return Name of the winning base, null if it is a draw
+         */
+        public String getWinner(){
+            return winner;
+        }
+
+        /**
+         * @return Simulation time from the start of the match until the end of the war, in milliseconds
+         */
+        public long getDuration(){
+            return duration;
+        }
+
+        /**
+         * @return Number of surviving units of the first base
+         */
+        public int getFirstArmy(){
+            return firstArmy;
+        }
+
+        /**
+         * @return Number of surviving units of the second base
+         */
+        public int getSecondArmy(){
+            return secondArmy;
+        }
+    }
+
+}
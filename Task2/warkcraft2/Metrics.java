@@ -0,0 +1,282 @@
+package warkcraft2;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Runtime metrics of a base: its economy, training and combat.
+ * Units record their events in striped counters and lock-free histograms, so recording costs
+ * a few nanoseconds; the rates and gauges are only computed when the metrics are read,
+ * either through {@link #snapshot()} or through JMX after {@link #register()}.
+ *
+ * Durations are measured on the simulation clock, so they are virtual milliseconds in a discrete simulation.
+ */
+public class Metrics implements MetricsMXBean {
+
+    private final String name;
+    private final SimulationClock clock;
+    private final Resources resources;
+    private final ActivityScope activities;
+    private final long start;
+
+    private final LongAdder attacks = new LongAdder();
+    private final LongAdder deaths = new LongAdder();
+    private final LatencyHistogram trainingWait = new LatencyHistogram();
+    private final LatencyHistogram trainingTime = new LatencyHistogram();
+    private final LatencyHistogram buildTime = new LatencyHistogram();
+    private final AtomicLong timeToAllBuildings = new AtomicLong(-1);
+    private ObjectName objectName;
+
+    public Metrics(String name, SimulationClock clock, Resources resources, ActivityScope activities){
+        this.name = name;
+        this.clock = clock;
+        this.resources = resources;
+        this.activities = activities;
+        this.start = clock.now();
+    }
+
+    public void recordAttack(){
+        attacks.increment();
+    }
+
+    public void recordDeath(){
+        deaths.increment();
+    }
+
+    /**
+     * @param duration Time a training order waited in the queue before its training started
+     */
+    public void recordTrainingWait(long duration){
+        trainingWait.record(duration);
+    }
+
+    /**
+     * @param duration Time from the start of a training until the unit was trained
+     */
+    public void recordTrainingTime(long duration){
+        trainingTime.record(duration);
+    }
+
+    /**
+     * @param duration Time from the start of a building until it was finished
+     */
+    public void recordBuildTime(long duration){
+        buildTime.record(duration);
+    }
+
+    /**
+     * Records the moment the base has every building it needs, only the first call counts.
+     */
+    public void recordAllBuildings(){
+        timeToAllBuildings.compareAndSet(-1, clock.now() - start);
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server as warkcraft2:type=Base,name=(name of the base).
+     */
+    public void register(){
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName("warkcraft2:type=Base,name=" + ObjectName.quote(name));
+            server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            objectName = null;
+            e.printStackTrace();
+        }
+    }
+
+    public void unregister(){
+        if(objectName == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+        objectName = null;
+    }
+
+    /**
+     * @return The current values of all metrics
+     */
+    public Snapshot snapshot(){
+        return new Snapshot(this);
+    }
+
+    @Override
+    public long getGoldHarvested(){
+        return resources.getGoldHarvested();
+    }
+
+    @Override
+    public long getWoodHarvested(){
+        return resources.getWoodHarvested();
+    }
+
+    @Override
+    public double getGoldIncomeRate(){
+        return perSecond(getGoldHarvested());
+    }
+
+    @Override
+    public double getWoodIncomeRate(){
+        return perSecond(getWoodHarvested());
+    }
+
+    @Override
+    public long getAttacks(){
+        return attacks.sum();
+    }
+
+    @Override
+    public double getAttacksPerSecond(){
+        return perSecond(getAttacks());
+    }
+
+    @Override
+    public long getDeaths(){
+        return deaths.sum();
+    }
+
+    @Override
+    public double getDeathsPerSecond(){
+        return perSecond(getDeaths());
+    }
+
+    @Override
+    public int getActiveActivities(){
+        return activities.getActiveCount();
+    }
+
+    @Override
+    public int getThreadCount(){
+        return ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    @Override
+    public long getTimeToAllBuildings(){
+        return timeToAllBuildings.get();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getTrainingWait(){
+        return trainingWait.snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getTrainingTime(){
+        return trainingTime.snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getBuildTime(){
+        return buildTime.snapshot();
+    }
+
+    private double perSecond(long count){
+        long elapsed = clock.now() - start;
+        return elapsed <= 0 ? 0 : count * 1000.0 / elapsed;
+    }
+
+    /**
+     * Values of the metrics of a base at one point of time.
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long elapsed;
+        private final long goldHarvested;
+        private final long woodHarvested;
+        private final long attacks;
+        private final long deaths;
+        private final int activeActivities;
+        private final int threadCount;
+        private final long timeToAllBuildings;
+        private final LatencyHistogram.Snapshot trainingWait;
+        private final LatencyHistogram.Snapshot trainingTime;
+        private final LatencyHistogram.Snapshot buildTime;
+
+        private Snapshot(Metrics metrics){
+            this.name = metrics.name;
+            this.elapsed = metrics.clock.now() - metrics.start;
+            this.goldHarvested = metrics.getGoldHarvested();
+            this.woodHarvested = metrics.getWoodHarvested();
+            this.attacks = metrics.getAttacks();
+            this.deaths = metrics.getDeaths();
+            this.activeActivities = metrics.getActiveActivities();
+            this.threadCount = metrics.getThreadCount();
+            this.timeToAllBuildings = metrics.getTimeToAllBuildings();
+            this.trainingWait = metrics.getTrainingWait();
+            this.trainingTime = metrics.getTrainingTime();
+            this.buildTime = metrics.getBuildTime();
+        }
+
+        public String getName(){
+            return name;
+        }
+
+        /**
+         * @return Simulation time since the metrics were created
+         */
+        public long getElapsed(){
+            return elapsed;
+        }
+
+        public long getGoldHarvested(){
+            return goldHarvested;
+        }
+
+        public long getWoodHarvested(){
+            return woodHarvested;
+        }
+
+        public long getAttacks(){
+            return attacks;
+        }
+
+        public long getDeaths(){
+            return deaths;
+        }
+
+        public int getActiveActivities(){
+            return activeActivities;
+        }
+
+        public int getThreadCount(){
+            return threadCount;
+        }
+
+        /**
+         * @return Time until the base had every building it needs, -1 if it doesn't have them yet
+         */
+        public long getTimeToAllBuildings(){
+            return timeToAllBuildings;
+        }
+
+        public LatencyHistogram.Snapshot getTrainingWait(){
+            return trainingWait;
+        }
+
+        public LatencyHistogram.Snapshot getTrainingTime(){
+            return trainingTime;
+        }
+
+        public LatencyHistogram.Snapshot getBuildTime(){
+            return buildTime;
+        }
+
+        @Override
+        public String toString(){
+            return name + " metrics after " + elapsed + " ms:" +
+                    " gold=" + goldHarvested + " wood=" + woodHarvested +
+                    " attacks=" + attacks + " deaths=" + deaths +
+                    " activities=" + activeActivities + " threads=" + threadCount +
+                    " allBuildings=" + timeToAllBuildings +
+                    " trainingWait[" + trainingWait + "] trainingTime[" + trainingTime + "] buildTime[" + buildTime + "]";
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package warkcraft2;
+
+/**
+ * Management interface of the {@link Metrics} of a base.
+ * Durations are in simulation milliseconds, rates are per simulation second.
+ */
+public interface MetricsMXBean {
+
+    long getGoldHarvested();
+
+    long getWoodHarvested();
+
+    double getGoldIncomeRate();
+
+    double getWoodIncomeRate();
+
+    long getAttacks();
+
+    double getAttacksPerSecond();
+
+    long getDeaths();
+
+    double getDeathsPerSecond();
+
+    int getActiveActivities();
+
+    int getThreadCount();
+
+    long getTimeToAllBuildings();
+
+    LatencyHistogram.Snapshot getTrainingWait();
+
+    LatencyHistogram.Snapshot getTrainingTime();
+
+    LatencyHistogram.Snapshot getBuildTime();
+
+}
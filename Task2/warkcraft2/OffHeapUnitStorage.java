@@ -0,0 +1,162 @@
+package warkcraft2;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Unit storage keeping the combatants in off-heap memory, in a direct buffer of fixed size records.
+ * The garbage collector only sees the buffer object, so neither the heap size nor the GC time
+ * grows with the number of combatants. The memory is released by the garbage collector once the buffer
+ * is no longer reachable, {@link #close()} drops the storage's reference to it.
+ *
+ * A record is {@link #RECORD_SIZE} bytes: health, flags, damage and target as ints, the attack range
+ * as shorts and the side as a byte. The ints are aligned to 4 bytes, so health, damage and flags are
+ * changed atomically through a {@link VarHandle} view of the buffer.
+ */
+public class OffHeapUnitStorage implements UnitStorage {
+
+    static final int RECORD_SIZE = 24;
+    /**
+     * Largest number of combatants fitting into one buffer
+     */
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE / RECORD_SIZE;
+
+    private static final int HEALTH = 0;
+    private static final int FLAGS = 4;
+    private static final int DAMAGE = 8;
+    private static final int TARGET = 12;
+    private static final int ATTACK_MIN = 16;
+    private static final int ATTACK_MAX = 18;
+    private static final int SIDE = 20;
+
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private int count = 0;
+    private int capacity;
+    private ByteBuffer records;
+
+    public OffHeapUnitStorage(int capacity){
+        if(capacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("Capacity over " + MAX_CAPACITY + ": " + capacity);
+        this.capacity = Math.max(capacity, 1);
+        this.records = allocate(this.capacity);
+    }
+
+    @Override
+    public int add(int side, int health, int attackMin, int attackMax){
+        if(attackMin < 0 || attackMin > Short.MAX_VALUE || attackMax < 0 || attackMax > Short.MAX_VALUE)
+            throw new IllegalArgumentException("Attack out of range: " + attackMin + ", " + attackMax);
+        if(count == capacity)
+            grow();
+        int unit = count++;
+        int offset = unit * RECORD_SIZE;
+        records.putInt(offset + HEALTH, health)
+                .putInt(offset + FLAGS, 0)
+                .putInt(offset + DAMAGE, 0)
+                .putInt(offset + TARGET, -1)
+                .putShort(offset + ATTACK_MIN, (short) attackMin)
+                .putShort(offset + ATTACK_MAX, (short) attackMax)
+                .put(offset + SIDE, (byte) side);
+        return unit;
+    }
+
+    @Override
+    public int size(){
+        return count;
+    }
+
+    @Override
+    public int getSide(int unit){
+        return records.get(unit * RECORD_SIZE + SIDE);
+    }
+
+    @Override
+    public int getAttackMin(int unit){
+        return records.getShort(unit * RECORD_SIZE + ATTACK_MIN);
+    }
+
+    @Override
+    public int getAttackMax(int unit){
+        return records.getShort(unit * RECORD_SIZE + ATTACK_MAX);
+    }
+
+    @Override
+    public int getHealth(int unit){
+        return records.getInt(unit * RECORD_SIZE + HEALTH);
+    }
+
+    @Override
+    public int getAndAddHealth(int unit, int delta){
+        return (int) INTS.getAndAdd(records, unit * RECORD_SIZE + HEALTH, delta);
+    }
+
+    @Override
+    public void addDamage(int unit, int amount){
+        int offset = unit * RECORD_SIZE + DAMAGE;
+        records.putInt(offset, records.getInt(offset) + amount);
+    }
+
+    @Override
+    public void addDamageAtomically(int unit, int amount){
+        INTS.getAndAdd(records, unit * RECORD_SIZE + DAMAGE, amount);
+    }
+
+    @Override
+    public int takeDamage(int unit){
+        int offset = unit * RECORD_SIZE + DAMAGE;
+        int taken = records.getInt(offset);
+        records.putInt(offset, 0);
+        return taken;
+    }
+
+    @Override
+    public int getTarget(int unit){
+        return records.getInt(unit * RECORD_SIZE + TARGET);
+    }
+
+    @Override
+    public void setTarget(int unit, int target){
+        records.putInt(unit * RECORD_SIZE + TARGET, target);
+    }
+
+    @Override
+    public int getFlags(int unit){
+        return (int) INTS.getVolatile(records, unit * RECORD_SIZE + FLAGS);
+    }
+
+    @Override
+    public boolean setFlag(int unit, int flag){
+        int offset = unit * RECORD_SIZE + FLAGS;
+        int current = (int) INTS.getVolatile(records, offset);
+        while ((current & flag) == 0) {
+            int witness = (int) INTS.compareAndExchange(records, offset, current, current | flag);
+            if(witness == current)
+                return true;
+            current = witness;
+        }
+        return false;
+    }
+
+    private void grow(){
+        if(capacity == MAX_CAPACITY)
+            throw new IllegalStateException("Unit storage is full: " + capacity);
+        capacity = (int) Math.min((long) capacity * 2, MAX_CAPACITY);
+        ByteBuffer grown = allocate(capacity);
+        grown.put(0, records, 0, count * RECORD_SIZE);
+        records = grown;
+    }
+
+    @Override
+    public void close(){
+        records = null;
+        count = 0;
+        capacity = 0;
+    }
+
+    private static ByteBuffer allocate(int capacity){
+        return ByteBuffer.allocateDirect(capacity * RECORD_SIZE).order(ByteOrder.nativeOrder());
+    }
+
+}
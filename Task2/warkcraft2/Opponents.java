@@ -0,0 +1,19 @@
+package warkcraft2;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The enemy units a soldier can attack during a war.
+ */
+@FunctionalInterface
+public interface Opponents {
+
+    /**
+     * Picks the next opponent of a soldier.
+     *
+     * @param random The soldier's random stream
+     * @return A living enemy unit, null if there is none left
+     */
+    Personnel pick(RandomGenerator random);
+
+}
@@ -1,17 +1,29 @@
 package warkcraft2;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 public class Peasant extends Personnel {
 
-    private static final int HARVEST_WAIT_TIME = 100;
-    private static final int HARVEST_AMOUNT = 10;
+    static final int HEALTH = 220;
+    static final int ATTACK_MIN = 5;
+    static final int ATTACK_MAX = 6;
+    static final int HARVEST_WAIT_TIME = 100;
+    static final int HARVEST_AMOUNT = 10;
 
     private AtomicBoolean isHarvesting = new AtomicBoolean(false);
     private AtomicBoolean isBuilding = new AtomicBoolean(false);
+    private final AtomicBoolean isIdle = new AtomicBoolean(false);
+    // counts the starts of harvesting, a trip of an earlier start stops instead of delivering
+    private final AtomicInteger harvestRun = new AtomicInteger(0);
+    // what the peasant is doing, kept for snapshots
+    private volatile boolean mining;
+    private volatile UnitType buildingType;
+    private volatile long buildingDue;
 
     private Peasant(Base owner) {
-        super(220, owner, 5, 6, UnitType.PEASANT);
+        super(HEALTH, owner, ATTACK_MIN, ATTACK_MAX, UnitType.PEASANT);
     }
 
     public static Peasant createPeasant(Base owner){
@@ -22,55 +34,110 @@ public class Peasant extends Personnel {
      * Starts gathering gold.
      */
     public void startMining(){
-        // TODO Set isHarvesting to true
-        // TODO Start harvesting on a new thread
-        // TODO Harvesting: Sleep for HARVEST_WAIT_TIME, then add the resource - HARVEST_AMOUNT
-        System.out.println("Peasant starting mining");
+        if(!isHarvesting.compareAndSet(false, true))
+            return;
+        mining = true;
+        GameLog.debug("Peasant", "starting mining");
+        harvest(harvestRun.incrementAndGet(), getOwner().getResources()::addGold);
     }
 
     /**
      * Starts gathering wood.
      */
     public void startCuttingWood(){
-        // TODO Set isHarvesting to true
-        // TODO Start harvesting on a new thread
-        // TODO Harvesting: Sleep for HARVEST_WAIT_TIME, then add the resource - HARVEST_AMOUNT
-        System.out.println("Peasant starting cutting wood");
+        if(!isHarvesting.compareAndSet(false, true))
+            return;
+        mining = false;
+        GameLog.debug("Peasant", "starting cutting wood");
+        harvest(harvestRun.incrementAndGet(), getOwner().getResources()::addWood);
+    }
+
+    /**
+     * One harvesting trip: wait HARVEST_WAIT_TIME, then deliver HARVEST_AMOUNT
+     * and go again until the peasant is told to stop. A trip still on its way when the peasant
+     * is stopped and started again belongs to the old run, so it ends without delivering.
+     *
+     * @param run The start of harvesting the trip belongs to
+     * @param deliver Adds the harvested amount to the base's resources
+     */
+    private void harvest(int run, IntConsumer deliver){
+        schedule(HARVEST_WAIT_TIME, () -> {
+            if(!isHarvesting.get() || harvestRun.get() != run)
+                return;
+            deliver.accept(HARVEST_AMOUNT);
+            harvest(run, deliver);
+        });
     }
 
     /**
      * Peasant should stop all harvesting once this is invoked
      */
     public void stopHarvesting(){
-        this.isHarvesting.set(false);
+        if(this.isHarvesting.getAndSet(false))
+            getOwner().getIdlePeasants().release(this);
     }
 
     /**
      * Tries to build a certain type of building.
      * Can only build if there are enough gold and wood for the building
-     * to be built.
+     * to be built, these are reserved before the building process starts.
      *
      * @param buildingType Type of the building
      * @return true, if the building process has started
      *         false, if there are insufficient resources
      */
     public boolean tryBuilding(UnitType buildingType){
-        // TODO Start building on a separate thread if there are enough resources
-        // TODO Use the Resources class' canBuild method to determine
-        // TODO Use the startBuilding method if the process can be started
-        return false;
+        Resources.Reservation reservation = getOwner().getResources().reserve(buildingType.goldCost, buildingType.woodCost, 0);
+        if(reservation == null)
+            return false;
+        if(!startBuilding(buildingType, reservation)) {
+            reservation.rollback();
+            return false;
+        }
+        return true;
     }
 
     /**
      * Start building a certain type of building.
      * Keep in mind that a peasant can only build one building at one time.
+     * The peasant stays busy for the building's build time, then the reservation is committed.
      *
      * @param buildingType Type of the building
+     * @param reservation Resources reserved for the building
+     * @return true, if the peasant was free to start building
      */
-    private void startBuilding(UnitType buildingType){
-        // TODO Ensure that only one building can be built at a time - use isBuilding atomic boolean
-        // TODO Building steps: Remove cost, build the building, wait the wait time
-        // TODO Use Building's createBuilding method to create the building
+    private boolean startBuilding(UnitType buildingType, Resources.Reservation reservation){
+        if(!isBuilding.compareAndSet(false, true))
+            return false;
+        getOwner().getBuildings().add(Building.createBuilding(buildingType, getOwner()));
+        finishBuilding(buildingType, buildingType.buildTime, reservation);
+        return true;
+    }
+
+    /**
+     * Continues a building that was in progress when a snapshot was taken.
+     * The building itself is already restored in the registry of the base.
+     *
+     * @param buildingType Type of the building
+     * @param remaining Remaining build time
+     * @param reservation Resources reserved for the building
+     */
+    void resumeBuilding(UnitType buildingType, long remaining, Resources.Reservation reservation){
+        isBuilding.set(true);
+        finishBuilding(buildingType, remaining, reservation);
+    }
+
+    private void finishBuilding(UnitType buildingType, long remaining, Resources.Reservation reservation){
+        this.buildingType = buildingType;
+        this.buildingDue = getOwner().getClock().now() + remaining;
+        long started = getOwner().getClock().now();
+        schedule(remaining, () -> {
+            reservation.commit();
+            getOwner().getMetrics().recordBuildTime(getOwner().getClock().now() - started);
+            this.buildingType = null;
+            isBuilding.set(false);
+            getOwner().getIdlePeasants().release(this);
+        });
     }
 
     /**
@@ -83,5 +150,43 @@ public class Peasant extends Personnel {
         return !isHarvesting.get() && !isBuilding.get();
     }
 
+    boolean isHarvesting(){
+        return isHarvesting.get();
+    }
+
+    /**
+     * @return true, if the peasant harvests gold, false if wood or nothing
+     */
+    boolean isMining(){
+        return isHarvesting.get() && mining;
+    }
+
+    /**
+     * @return Type of the building under construction, null if the peasant isn't building
+     */
+    UnitType getBuildingType(){
+        return buildingType;
+    }
+
+    /**
+     * @return Time the building under construction is finished at
+     */
+    long getBuildingDue(){
+        return buildingDue;
+    }
+
+    /**
+     * Marks the peasant as waiting in the idle pool.
+     *
+     * @return false, if the peasant is already in the pool
+     */
+    boolean enterPool(){
+        return isIdle.compareAndSet(false, true);
+    }
+
+    void leavePool(){
+        isIdle.set(false);
+    }
+
 
 }
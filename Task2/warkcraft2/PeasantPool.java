@@ -0,0 +1,91 @@
+package warkcraft2;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of the idle peasants of a base.
+ * Peasants enter the pool when they become free (they stop harvesting or finish building)
+ * and leave it when a job claims them. A peasant is in the pool at most once and every
+ * claim removes it atomically, so one peasant never gets two jobs at the same time.
+ */
+public class PeasantPool {
+
+    private final Queue<Peasant> idle = new ConcurrentLinkedQueue<>();
+    // number of peasants in the queue that are not claimed yet
+    private final Semaphore available = new Semaphore(0);
+    private final Queue<Runnable> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Puts a free peasant into the pool.
+     *
+     * @param peasant The peasant
+     * @return true, if the peasant entered the pool, false if it is not free or already in the pool
+     */
+    public boolean release(Peasant peasant){
+        if(!peasant.isFree() || !peasant.enterPool())
+            return false;
+        idle.offer(peasant);
+        available.release();
+        Runnable waiter;
+        while ((waiter = waiters.poll()) != null) {
+            waiter.run();
+        }
+        return true;
+    }
+
+    /**
+     * Runs the action once, the next time a peasant enters the pool,
+     * or right away if there is an idle peasant already.
+     *
+     * @param action The action to run
+     */
+    public void whenIdle(Runnable action){
+        waiters.add(action);
+        // a peasant might have entered the pool before the action was added
+        if(available.availablePermits() > 0 && waiters.remove(action))
+            action.run();
+    }
+
+    /**
+     * Claims an idle peasant without waiting.
+     *
+     * @return The claimed peasant, null if there is no idle peasant
+     */
+    public Peasant tryAcquire(){
+        if(!available.tryAcquire())
+            return null;
+        return claim();
+    }
+
+    /**
+     * Claims an idle peasant, waiting at most the given time for one to become idle.
+     *
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return The claimed peasant, null if none became idle in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Peasant acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        if(!available.tryAcquire(timeout, unit))
+            return null;
+        return claim();
+    }
+
+    /**
+     * @return Number of idle peasants
+     */
+    public int size(){
+        return available.availablePermits();
+    }
+
+    private Peasant claim(){
+        // a permit guarantees there is a peasant in the queue for us
+        Peasant peasant = idle.poll();
+        peasant.leavePool();
+        return peasant;
+    }
+
+}
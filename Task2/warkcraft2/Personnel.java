@@ -1,8 +1,6 @@
 package warkcraft2;
 
-import java.util.List;
-import java.util.Random;
-import java.util.concurrent.TimeUnit;
+import java.util.SplittableRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class Personnel extends Unit {
@@ -14,13 +12,24 @@ public abstract class Personnel extends Unit {
     private final int attackMin;
     private final int attackMax;
     private Personnel opponent;
-    private static final Random random = new Random();
+    // identifies the unit within its base, e.g. in the journal
+    private final int id;
+    // own stream of the unit, split from its base's; only the unit's own activities use it, one at a time
+    private final SplittableRandom random;
+    // slots of the personnel in the rosters it is part of, -1 if it is not in one
+    private int armySlot = -1;
+    private int rosterSlot = -1;
+    // slots of the personnel in its army's target heaps, -1 if it is not in one
+    private int healthSlot = -1;
+    private int threatSlot = -1;
 
     public Personnel(int health, Base owner, int attackMin, int attackMax, UnitType unitType) {
         super(owner, unitType);
         this.health = new AtomicInteger(health);
         this.attackMin = attackMin;
         this.attackMax = attackMax;
+        this.random = owner.splitRandom();
+        this.id = owner.nextUnitId();
     }
 
     /**
@@ -30,42 +39,116 @@ public abstract class Personnel extends Unit {
      *
      * @param enemyArmy The enemy personnel
      */
-    public void startWar(List<Personnel> enemyArmy){
-        if(health.get() <= 0 || enemyArmy.size() <= 0)
+    public void startWar(Roster<Personnel> enemyArmy){
+        startWar((Opponents) enemyArmy::pickRandom);
+    }
+
+    /**
+     * Starts a fight with the enemies, which can belong to any number of armies.
+     *
+     * @param enemies The enemy units
+     */
+    public void startWar(Opponents enemies){
+        if(health.get() <= 0)
             return;
-        while(health.get() > 0 && !enemyArmy.isEmpty()) {
-            opponent = enemyArmy.get(random.nextInt(enemyArmy.size()));
-            new Thread(this::startAttacking);
-        }
+        startAttacking(enemies);
     }
 
     /**
-     * Starts attacking the current opponent.
-     * Keeps attacking the enemy until either this personnel or the enemy personnel is dead.
+     * Attacks the current opponent once, then schedules the next attack after the attack wait time.
+     * Keeps attacking the enemy until either this personnel or the enemy personnel is dead,
+     * then moves on to a new random opponent until the enemy army is wiped out.
+     *
+     * @param enemies The enemy units
      */
-    private void startAttacking(){
-        while (health.get() > 0 && opponent.getHealth() > 0){
-            opponent.loseHealth(getAttack());
-            try {
-                TimeUnit.MILLISECONDS.sleep(random.nextInt(200) + 100);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+    private void startAttacking(Opponents enemies){
+        if(health.get() <= 0)
+            return;
+        if(opponent == null || opponent.getHealth() <= 0) {
+            opponent = enemies.pick(random);
+            if(opponent == null) {
+                getOwner().signalEnemyDefeated();
+                return;
             }
         }
-        opponent = null;
+        // the picked unit might have fallen without being reaped yet, then this attack is lost
+        if(opponent.getHealth() > 0) {
+            int damage = getAttack();
+            Journal journal = getOwner().getJournal();
+            if(journal != null)
+                journal.attack(getOwner().getJournalIndex(), id, opponent.getOwner().getJournalIndex(), opponent.getId(), damage);
+            opponent.loseHealth(damage);
+            getOwner().getMetrics().recordAttack();
+        }
+        schedule(random.nextInt(ATTACK_WAIT_MAXIMUM) + ATTACK_WAIT_MINIMUM, () -> startAttacking(enemies));
+    }
+
+    public int getId() {
+        return id;
     }
 
     public int getHealth() {
         return health.get();
     }
 
+    void setHealth(int health) {
+        this.health.set(health);
+    }
+
+    /**
+     * Applies damage atomically, so concurrent hits are never lost.
+     * Only the hit taking the health from positive to zero or below signals the death.
+     *
+     * @param amount The damage
+     */
     public void loseHealth(int amount) {
-        this.health.set(this.health.get() - amount);
-        if(this.health.get() <= 0){
+        int before = this.health.getAndAdd(-amount);
+        this.getOwner().healthChanged(this);
+        if(before > 0 && before - amount <= 0){
             this.getOwner().signalPersonnelDeath(this);
         }
     }
 
+    int getArmySlot() {
+        return armySlot;
+    }
+
+    void setArmySlot(int armySlot) {
+        this.armySlot = armySlot;
+    }
+
+    int getRosterSlot() {
+        return rosterSlot;
+    }
+
+    void setRosterSlot(int rosterSlot) {
+        this.rosterSlot = rosterSlot;
+    }
+
+    int getHealthSlot() {
+        return healthSlot;
+    }
+
+    void setHealthSlot(int healthSlot) {
+        this.healthSlot = healthSlot;
+    }
+
+    int getThreatSlot() {
+        return threatSlot;
+    }
+
+    void setThreatSlot(int threatSlot) {
+        this.threatSlot = threatSlot;
+    }
+
+    public int getAttackMin(){
+        return attackMin;
+    }
+
+    public int getAttackMax(){
+        return attackMax;
+    }
+
     public int getAttack(){
         return random.nextInt(attackMax) + attackMin;
     }
@@ -0,0 +1,173 @@
+package warkcraft2;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Training queue of one building that trains units (the town hall of a base, or a barracks).
+ * Orders are trained one after the other: the next order starts as soon as the previous one
+ * has finished and its gold, wood and food can be reserved. Nothing waits on a thread,
+ * the order's future is completed with the trained unit when its training time is over.
+ *
+ * Every training building has its own queue, so two barracks train two footmen at the same time.
+ */
+public class ProductionQueue {
+
+    /**
+     * Number of bytes written by {@link #writeTo(ByteBuffer)} for one order
+     */
+    static final int ORDER_SNAPSHOT_SIZE = Byte.BYTES + Long.BYTES;
+
+    private final Base owner;
+    private final BlockingQueue<Order<?>> orders;
+    // orders that are queued or being trained
+    private final AtomicInteger pending = new AtomicInteger(0);
+    private final AtomicBoolean isTraining = new AtomicBoolean(false);
+    private final AtomicBoolean waitingForResources = new AtomicBoolean(false);
+    // the order being trained and when it is done, kept for snapshots
+    private volatile Order<?> training;
+    private volatile long trainingDue;
+
+    /**
+     * @param owner The base the building belongs to
+     * @param capacity Maximum number of orders waiting in the queue
+     */
+    public ProductionQueue(Base owner, int capacity){
+        this.owner = owner;
+        this.orders = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Puts a training order into the queue.
+     *
+     * @param unitType Type of the unit, determines the cost and the training time
+     * @param factory Creates the unit when its training is over
+     * @return Future completed with the trained unit, null if the queue is full
+     */
+    public <T extends Personnel> CompletableFuture<T> enqueue(UnitType unitType, Supplier<T> factory){
+        Order<T> order = new Order<>(unitType, factory, owner.getClock().now());
+        if(!orders.offer(order))
+            return null;
+        pending.incrementAndGet();
+        startNext();
+        return order.trained;
+    }
+
+    /**
+     * @return Number of orders that are queued or being trained
+     */
+    public int getPending(){
+        return pending.get();
+    }
+
+    private void startNext(){
+        if(!isTraining.compareAndSet(false, true))
+            return;
+        Order<?> order = orders.peek();
+        if(order == null) {
+            isTraining.set(false);
+            // an order might have been added after the peek
+            if(!orders.isEmpty())
+                startNext();
+            return;
+        }
+        UnitType unitType = order.unitType;
+        Resources.Reservation reservation = owner.getResources().reserve(unitType.goldCost, unitType.woodCost, unitType.foodCost);
+        if(reservation == null) {
+            isTraining.set(false);
+            if(waitingForResources.compareAndSet(false, true))
+                owner.getResources().whenAvailable(unitType.goldCost, unitType.woodCost, unitType.foodCost, () -> {
+                    waitingForResources.set(false);
+                    owner.schedule(0, this::startNext);
+                });
+            return;
+        }
+        orders.poll();
+        owner.getMetrics().recordTrainingWait(owner.getClock().now() - order.enqueued);
+        train(order, unitType.buildTime, reservation);
+    }
+
+    private void train(Order<?> order, long remaining, Resources.Reservation reservation){
+        long started = owner.getClock().now();
+        training = order;
+        trainingDue = started + remaining;
+        owner.schedule(remaining, () -> {
+            try {
+                order.complete();
+                owner.getMetrics().recordTrainingTime(owner.getClock().now() - started);
+                reservation.commit();
+            } catch (RuntimeException e) {
+                reservation.rollback();
+                order.trained.completeExceptionally(e);
+            } finally {
+                training = null;
+                pending.decrementAndGet();
+                isTraining.set(false);
+                startNext();
+            }
+        });
+    }
+
+    /**
+     * Continues the training of an order that was in progress when a snapshot was taken.
+     * Has to be called before any order is enqueued.
+     *
+     * @param unitType Type of the unit
+     * @param factory Creates the unit when its training is over
+     * @param remaining Remaining training time
+     * @param reservation Resources reserved for the unit
+     * @return Future completed with the trained unit
+     */
+    <T extends Personnel> CompletableFuture<T> resume(UnitType unitType, Supplier<T> factory, long remaining, Resources.Reservation reservation){
+        Order<T> order = new Order<>(unitType, factory, owner.getClock().now());
+        isTraining.set(true);
+        pending.incrementAndGet();
+        train(order, remaining, reservation);
+        return order.trained;
+    }
+
+    /**
+     * @return Number of bytes {@link #writeTo(ByteBuffer)} writes
+     */
+    int snapshotSize(){
+        return Integer.BYTES + (orders.size() + (training == null ? 0 : 1)) * ORDER_SNAPSHOT_SIZE;
+    }
+
+    /**
+     * Writes the orders: the one being trained with its remaining time first, then the queued ones with -1.
+     *
+     * @param buffer Buffer with at least {@link #snapshotSize()} bytes remaining
+     */
+    void writeTo(ByteBuffer buffer){
+        Order<?> current = training;
+        buffer.putInt(orders.size() + (current == null ? 0 : 1));
+        if(current != null)
+            buffer.put((byte) current.unitType.ordinal()).putLong(trainingDue - owner.getClock().now());
+        for (Order<?> order : orders) {
+            buffer.put((byte) order.unitType.ordinal()).putLong(-1);
+        }
+    }
+
+    private static final class Order<T extends Personnel> {
+        private final UnitType unitType;
+        private final Supplier<T> factory;
+        private final CompletableFuture<T> trained = new CompletableFuture<>();
+        private final long enqueued;
+
+        private Order(UnitType unitType, Supplier<T> factory, long enqueued){
+            this.unitType = unitType;
+            this.factory = factory;
+            this.enqueued = enqueued;
+        }
+
+        private void complete(){
+            trained.complete(factory.get());
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package warkcraft2;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock that waits the actual amount of time before running an action.
+ */
+public class RealTimeClock implements SimulationClock {
+
+    private final long start = System.nanoTime();
+    private final ScheduledExecutorService scheduler =
+            new ScheduledThreadPoolExecutor(Runtime.getRuntime().availableProcessors());
+
+    @Override
+    public long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Override
+    public void schedule(long delay, Runnable action) {
+        try {
+            scheduler.schedule(() -> {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the clock has been shut down, activities still running can't schedule their next step
+        }
+    }
+
+    @Override
+    public void schedule(long delay, Runnable action, Executor executor) {
+        schedule(delay, () -> {
+            try {
+                executor.execute(action);
+            } catch (RejectedExecutionException e) {
+                // the executor has been closed, the action is no longer needed
+            }
+        });
+    }
+
+    @Override
+    public void runUntil(Future<?> done) {
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+}
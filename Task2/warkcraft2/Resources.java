@@ -1,37 +1,122 @@
 package warkcraft2;
 
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Resources {
 
     private static final int CAPACITY_LOWER_LIMIT = UnitType.PEASANT.foodCost * 5;
+    /**
+     * Capacity added by a farm
+     */
+    static final int FARM_CAPACITY = 10;
+
+    // gold, wood and capacity are packed into one word, so a reservation takes all of them with a single CAS
+    // bits 38-63: gold, bits 12-37: wood, bits 0-11: capacity, all of them signed;
+    // gold and wood not fitting into their field stay collected with the income
+    private static final int CAPACITY_BITS = 12;
+    private static final int WOOD_BITS = 26;
+    private static final int GOLD_BITS = 26;
+    private static final int WOOD_SHIFT = CAPACITY_BITS;
+    private static final int GOLD_SHIFT = WOOD_SHIFT + WOOD_BITS;
+    static final int MAX_GOLD = (1 << (GOLD_BITS - 1)) - 1;
+    static final int MIN_GOLD = -(1 << (GOLD_BITS - 1));
+    static final int MAX_WOOD = (1 << (WOOD_BITS - 1)) - 1;
+    static final int MIN_WOOD = -(1 << (WOOD_BITS - 1));
+    /**
+     * Largest capacity limit, farms built beyond it add no more capacity
+     */
+    static final int MAX_CAPACITY = (1 << (CAPACITY_BITS - 1)) - 1;
+    static final int MIN_CAPACITY = -(1 << (CAPACITY_BITS - 1));
+    /**
+     * Number of bytes written by {@link #writeTo(ByteBuffer)}
+     */
+    static final int SNAPSHOT_SIZE = 4 * Integer.BYTES + 2 * Long.BYTES;
 
-    private AtomicInteger gold;
-    private AtomicInteger wood;
+    private final AtomicLong stock;
     private AtomicInteger capacityLimit;
-    private AtomicInteger capacity;
 
+    // harvested income is collected in striped counters, so harvesters don't contend on the stock
+    private final LongAdder goldIncome = new LongAdder();
+    private final LongAdder woodIncome = new LongAdder();
+    // everything harvested since the start, never reset
+    private final LongAdder goldHarvested = new LongAdder();
+    private final LongAdder woodHarvested = new LongAdder();
+    private final boolean flushOnRead;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private volatile Journal journal;
+    private int journalBase;
+
+    /**
+     * Creates the resources of a base, the harvested income is only folded into the stock
+     * when {@link #flushIncome()} is called and before every check or reservation.
+     */
     public Resources(){
-        this.gold = new AtomicInteger(UnitType.PEASANT.goldCost * 5);
-        this.wood = new AtomicInteger(0);
+        this(false);
+    }
+
+    /**
+     * Creates the resources of a base.
+     *
+     * @param flushOnRead true, if the harvested income is folded into the stock on every read and, while someone waits, on every income,
+     *                    false, if it is only folded when {@link #flushIncome()} is called and before every check or reservation
+     */
+    public Resources(boolean flushOnRead){
+        this.stock = new AtomicLong(pack(UnitType.PEASANT.goldCost * 5, 0, 0));
         this.capacityLimit = new AtomicInteger(CAPACITY_LOWER_LIMIT);
-        this.capacity = new AtomicInteger(0);
+        this.flushOnRead = flushOnRead;
     }
 
     public int getGold(){
-        return gold.get();
+        return gold(read());
     }
 
     public void addGold(int amount){
-        this.gold.set(this.gold.get() + amount);
+        goldIncome.add(amount);
+        goldHarvested.add(amount);
+        if(flushOnRead && !waiters.isEmpty())
+            flushIncome();
     }
 
     public int getWood(){
-        return wood.get();
+        return wood(read());
     }
 
     public void addWood(int amount){
-        this.wood.set(this.wood.get() + amount);
+        woodIncome.add(amount);
+        woodHarvested.add(amount);
+        if(flushOnRead && !waiters.isEmpty())
+            flushIncome();
+    }
+
+    /**
+     * @return Gold harvested since the start
+     */
+    public long getGoldHarvested(){
+        return goldHarvested.sum();
+    }
+
+    /**
+     * @return Wood harvested since the start
+     */
+    public long getWoodHarvested(){
+        return woodHarvested.sum();
+    }
+
+    /**
+     * Folds the harvested income collected since the last flush into the spendable stock.
+     * The part of the income not fitting into the stock is kept for a later flush.
+     */
+    public void flushIncome(){
+        long gold = goldIncome.sumThenReset();
+        long wood = woodIncome.sumThenReset();
+        if(gold != 0 || wood != 0)
+            update(gold, wood, 0);
     }
 
     /**
@@ -42,7 +127,9 @@ public class Resources {
      * @return True, if there are enough resources to build it, false otherwise
      */
     public boolean canBuild(int goldCost, int woodCost){
-        return gold.get() >= goldCost && wood.get() >= woodCost;
+        flushIncome();
+        long current = stock.get();
+        return gold(current) >= goldCost && wood(current) >= woodCost;
     }
 
     /**
@@ -54,12 +141,58 @@ public class Resources {
      * @return True, if there are enough resources to train it, false otherwise
      */
     public boolean canTrain(int goldCost, int woodCost, int foodCost){
-        return gold.get() >= goldCost && wood.get() >= woodCost && (capacity.get() + foodCost <= capacityLimit.get());
+        flushIncome();
+        long current = stock.get();
+        return gold(current) >= goldCost && wood(current) >= woodCost && (capacity(current) + foodCost <= capacityLimit.get());
+    }
+
+    /**
+     * Reserves gold, wood and food in one atomic step, either all of them are taken or none.
+     * The income harvested so far is folded in first. The reserved amounts are taken from the resources immediately, the returned
+     * reservation has to be committed once the building or training has finished,
+     * or rolled back to give the resources back.
+     *
+     * @param goldCost Gold cost of the building or unit
+     * @param woodCost Wood cost of the building or unit
+     * @param foodCost Food cost of the unit, uses the capacity resource
+     * @return The reservation, null if there are not enough resources
+     */
+    public Reservation reserve(int goldCost, int woodCost, int foodCost){
+        long current;
+        long reserved;
+        flushIncome();
+        do {
+            current = stock.get();
+            int gold = gold(current);
+            int wood = wood(current);
+            int capacity = capacity(current);
+            // the limit only grows, so a reservation fitting under an older value still fits
+            if(gold < goldCost || wood < woodCost || capacity + foodCost > capacityLimit.get())
+                return null;
+            reserved = pack(gold - goldCost, wood - woodCost, capacity + foodCost);
+        } while (!stock.compareAndSet(current, reserved));
+        record(-goldCost, -woodCost, foodCost);
+        return new Reservation(goldCost, woodCost, foodCost);
+    }
+
+    /**
+     * Runs the action once there are at least the given amount of resources.
+     * The action runs only once, on the thread whose change made the resources available,
+     * or right away if they are already available.
+     *
+     * @param gold Required gold
+     * @param wood Required wood
+     * @param food Required free capacity
+     * @param action The action to run
+     */
+    public void whenAvailable(int gold, int wood, int food, Runnable action){
+        waiters.add(new Waiter(gold, wood, food, action));
+        flushIncome();
+        notifyWaiters();
     }
 
     public void removeCost(int gold, int wood){
-        this.gold.set(this.gold.get() - gold);
-        this.wood.set(this.wood.get() - wood);
+        update(-gold, -wood, 0);
     }
 
     public int getCapacityLimit(){
@@ -67,18 +200,192 @@ public class Resources {
     }
 
     /**
-     * Building a farm increases the capacity limit by 10
+     * Building a farm increases the capacity limit by {@link #FARM_CAPACITY}, up to {@link #MAX_CAPACITY}
      */
     public void farmBuilt(){
-        this.capacityLimit.set(this.capacityLimit.get() + 10);
+        this.capacityLimit.accumulateAndGet(FARM_CAPACITY, (limit, added) -> Math.min(limit + added, MAX_CAPACITY));
+        notifyWaiters();
     }
 
     public int getCapacity(){
-        return this.capacity.get();
+        return capacity(stock.get());
     }
 
     public void updateCapacity(int foodCost){
-        this.capacity.set(this.capacity.get() + foodCost);
+        update(0, 0, foodCost);
+    }
+
+    private long read(){
+        if(flushOnRead)
+            flushIncome();
+        return stock.get();
+    }
+
+    /**
+     * Changes the stock, the part of the gold and wood not fitting into the stock
+     * stays collected with the income and is folded in by a later flush.
+     */
+    private void update(long gold, long wood, int capacity){
+        long current;
+        int goldFolded;
+        int woodFolded;
+        do {
+            current = stock.get();
+            goldFolded = fitting(gold(current), gold, MIN_GOLD, MAX_GOLD);
+            woodFolded = fitting(wood(current), wood, MIN_WOOD, MAX_WOOD);
+        } while (!stock.compareAndSet(current, pack(gold(current) + goldFolded, wood(current) + woodFolded, capacity(current) + capacity)));
+        if(goldFolded != gold)
+            goldIncome.add(gold - goldFolded);
+        if(woodFolded != wood)
+            woodIncome.add(wood - woodFolded);
+        record(goldFolded, woodFolded, capacity);
+        notifyWaiters();
+    }
+
+    /**
+     * Records every change of the stock in the journal from now on.
+     *
+     * @param journal The journal of the match
+     * @param base Index of the base in the journal
+     */
+    void setJournal(Journal journal, int base){
+        this.journalBase = base;
+        this.journal = journal;
+    }
+
+    private void record(int gold, int wood, int capacity){
+        Journal journal = this.journal;
+        if(journal != null)
+            journal.resources(journalBase, gold, wood, capacity);
+    }
+
+    private void notifyWaiters(){
+        if(waiters.isEmpty())
+            return;
+        long current = stock.get();
+        int free = capacityLimit.get() - capacity(current);
+        for (Waiter waiter : waiters) {
+            boolean available = gold(current) >= waiter.gold && wood(current) >= waiter.wood && waiter.food <= free;
+            // only the thread removing the waiter runs it
+            if(available && waiters.remove(waiter))
+                waiter.action.run();
+        }
+    }
+
+    /**
+     * Creates the reservation of a building or training that was in progress when a snapshot was taken.
+     * The reserved amounts are already missing from the restored stock, so nothing is taken.
+     */
+    Reservation restoreReservation(int goldCost, int woodCost, int foodCost){
+        return new Reservation(goldCost, woodCost, foodCost);
+    }
+
+    /**
+     * Writes the stock, the capacity limit and the harvest totals, the collected income is folded in first.
+     *
+     * @param buffer Buffer with at least {@link #SNAPSHOT_SIZE} bytes remaining
+     */
+    void writeTo(ByteBuffer buffer){
+        flushIncome();
+        long current = stock.get();
+        buffer.putInt(gold(current)).putInt(wood(current)).putInt(capacity(current)).putInt(capacityLimit.get());
+        buffer.putLong(goldHarvested.sum()).putLong(woodHarvested.sum());
+    }
+
+    /**
+     * Restores the values written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @param buffer Buffer positioned at the written values
+     */
+    void readFrom(ByteBuffer buffer){
+        stock.set(pack(buffer.getInt(), buffer.getInt(), buffer.getInt()));
+        capacityLimit.set(buffer.getInt());
+        goldHarvested.add(buffer.getLong());
+        woodHarvested.add(buffer.getLong());
+    }
+
+    static int gold(long stock){
+        return (int) (stock >> GOLD_SHIFT);
+    }
+
+    static int wood(long stock){
+        return (int) ((stock << (Long.SIZE - GOLD_SHIFT)) >> (Long.SIZE - WOOD_BITS));
+    }
+
+    static int capacity(long stock){
+        return (int) ((stock << (Long.SIZE - CAPACITY_BITS)) >> (Long.SIZE - CAPACITY_BITS));
+    }
+
+    static long pack(int gold, int wood, int capacity){
+        checkRange("gold", gold, MIN_GOLD, MAX_GOLD);
+        checkRange("wood", wood, MIN_WOOD, MAX_WOOD);
+        checkRange("capacity", capacity, MIN_CAPACITY, MAX_CAPACITY);
+        return ((long) gold << GOLD_SHIFT)
+                | (((long) wood & ((1L << WOOD_BITS) - 1)) << WOOD_SHIFT)
+                | ((long) capacity & ((1L << CAPACITY_BITS) - 1));
+    }
+
+    private static void checkRange(String resource, int value, int min, int max){
+        if(value < min || value > max)
+            throw new ArithmeticException(resource + " out of range: " + value);
+    }
+
+    /**
+     * @return The part of the change that can be added to the amount without leaving the range
+     */
+    static int fitting(int amount, long change, int min, int max){
+        return (int) Math.max(min - (long) amount, Math.min(max - (long) amount, change));
+    }
+
+    private static final class Waiter {
+        private final int gold;
+        private final int wood;
+        private final int food;
+        private final Runnable action;
+
+        private Waiter(int gold, int wood, int food, Runnable action){
+            this.gold = gold;
+            this.wood = wood;
+            this.food = food;
+            this.action = action;
+        }
+    }
+
+    /**
+     * Resources set aside for one building or unit.
+     */
+    public final class Reservation {
+
+        private final int gold;
+        private final int wood;
+        private final int food;
+        private final AtomicBoolean settled = new AtomicBoolean(false);
+
+        private Reservation(int gold, int wood, int food){
+            this.gold = gold;
+            this.wood = wood;
+            this.food = food;
+        }
+
+        /**
+         * Finalizes the reservation, the reserved resources are spent.
+         */
+        public void commit(){
+            settle();
+        }
+
+        /**
+         * Cancels the reservation, the reserved resources are given back.
+         */
+        public void rollback(){
+            settle();
+            update(gold, wood, -food);
+        }
+
+        private void settle(){
+            if(!settled.compareAndSet(false, true))
+                throw new IllegalStateException("Reservation has already been committed or rolled back");
+        }
     }
 
 }
@@ -0,0 +1,165 @@
+package warkcraft2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.random.RandomGenerator;
+
+/**
+ * Concurrent, array backed collection of personnel.
+ * Every unit remembers its slot in the array, so removing it is an O(1) swap with the
+ * last unit, and picking a random live unit is a single array read.
+ *
+ * A unit can be in one army roster and in one roster of its type (peasants, footmen)
+ * at the same time, each kind keeps its slot in a separate field of the unit.
+ *
+ * @param <T> Type of the personnel
+ */
+public class Roster<T extends Personnel> implements Iterable<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final boolean armyRoster;
+    private final StampedLock lock = new StampedLock();
+    private Personnel[] units = new Personnel[INITIAL_CAPACITY];
+    private volatile int size = 0;
+
+    private Roster(boolean armyRoster){
+        this.armyRoster = armyRoster;
+    }
+
+    /**
+     * @return A roster holding the units of one type, e.g. the peasants of a base
+     */
+    public static <T extends Personnel> Roster<T> ofType(){
+        return new Roster<>(false);
+    }
+
+    /**
+     * @return A roster holding the army of a base
+     */
+    public static Roster<Personnel> army(){
+        return new Roster<>(true);
+    }
+
+    public void add(T unit){
+        long stamp = lock.writeLock();
+        try {
+            if(size == units.length)
+                units = Arrays.copyOf(units, size * 2);
+            units[size] = unit;
+            setSlot(unit, size);
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void addAll(Collection<? extends T> added){
+        for (T unit : added) {
+            add(unit);
+        }
+    }
+
+    /**
+     * Removes a unit by moving the last unit into its slot.
+     *
+     * @param unit The unit to remove
+     * @return true, if the unit was in the roster
+     */
+    public boolean remove(T unit){
+        long stamp = lock.writeLock();
+        try {
+            int slot = getSlot(unit);
+            if(slot < 0 || slot >= size || units[slot] != unit)
+                return false;
+            int last = size - 1;
+            Personnel moved = units[last];
+            units[slot] = moved;
+            setSlot(moved, slot);
+            units[last] = null;
+            setSlot(unit, -1);
+            size = last;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Picks a random unit of the roster.
+     *
+     * @param random Source of randomness
+     * @return A random unit, null if the roster is empty
+     */
+    public T pickRandom(RandomGenerator random){
+        long stamp = lock.tryOptimisticRead();
+        T picked = pick(random);
+        if(lock.validate(stamp))
+            return picked;
+        stamp = lock.readLock();
+        try {
+            return pick(random);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * @return The units of the roster at the moment of the call
+     */
+    public List<T> snapshot(){
+        long stamp = lock.readLock();
+        try {
+            List<T> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(cast(units[i]));
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator(){
+        return snapshot().iterator();
+    }
+
+    private T pick(RandomGenerator random){
+        // size and units might be read while a writer changes them, the caller validates the result
+        Personnel[] current = units;
+        int count = Math.min(size, current.length);
+        if(count == 0)
+            return null;
+        return cast(current[random.nextInt(count)]);
+    }
+
+    private int getSlot(Personnel unit){
+        return armyRoster ? unit.getArmySlot() : unit.getRosterSlot();
+    }
+
+    private void setSlot(Personnel unit, int slot){
+        if(armyRoster)
+            unit.setArmySlot(slot);
+        else
+            unit.setRosterSlot(slot);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Personnel unit){
+        return (T) unit;
+    }
+
+}
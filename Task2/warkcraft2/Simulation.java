@@ -1,42 +1,78 @@
 package warkcraft2;
 
-import java.util.concurrent.CountDownLatch;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 
 public class Simulation {
 
-    public static void main(String[] args){
-        Base col1 = new Base("Horde");
-        Base col2 = new Base("Allience");
-        CountDownLatch latch = new CountDownLatch(2);
-        new Thread(() -> {
-            col1.startPreparation();
-            col1.assembleArmy(latch);
-        }).start();
-        new Thread(() -> {
-            col2.startPreparation();
-            col2.assembleArmy(latch);
-        }).start();
-
-        try {
-            latch.await();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+    public static void main(String[] args) throws IOException {
+        SimulationClock clock = createClock(System.getProperty("warkcraft.clock", "realtime"));
+        String battleMode = System.getProperty("warkcraft.battle", "threaded");
+        long seed = Long.getLong("warkcraft.seed", System.nanoTime());
+        ExecutionMode executionMode = ExecutionMode.of(System.getProperty("warkcraft.execution", "platform"));
+        GameLog.info(null, "Seed:", seed);
+        int factions = Integer.getInteger("warkcraft.factions", 2);
+        TargetingStrategy targeting = TargetingStrategy.of(System.getProperty("warkcraft.targeting", "random"));
+        if(factions > 2) {
+            // more than two bases fight a war, a free-for-all unless they are split into fewer teams
+            War war = War.create(clock, executionMode, factions, Integer.getInteger("warkcraft.teams", factions), seed);
+            war.setTargeting(targeting);
+            war.play();
+            GameLog.flush();
+            return;
         }
-
-        System.out.println("Both bases finished their war preparation and assembled their armies");
-        CountDownLatch warLatch = new CountDownLatch(2);
-        Thread col1War = new Thread(() -> col1.goToWar(col2.getArmy(), warLatch));
-        Thread col2War = new Thread(() -> col2.goToWar(col1.getArmy(), warLatch));
-
-        col1War.start();
-        col2War.start();
-
-        try {
-            col1War.join();
-            col2War.join();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+        // a match can be continued from a snapshot, and a snapshot can be taken at a given time of a match in virtual time
+        String restore = System.getProperty("warkcraft.restore");
+        String snapshot = System.getProperty("warkcraft.snapshot");
+        Match match = restore == null
+                ? new Match("Horde", "Allience", clock, executionMode, battleMode, seed)
+                : GameSnapshot.restore(Path.of(restore), clock, executionMode, battleMode, seed);
+        match.setTargeting(targeting);
+        Base col1 = match.getFirst();
+        Base col2 = match.getSecond();
+        // the bases can follow the fastest build order found by the planner instead of the fixed one
+        if(restore == null && System.getProperty("warkcraft.buildorder", "fixed").equals("planned")) {
+            for (Base base : List.of(col1, col2)) {
+                BuildPlan plan = base.planBuildOrder();
+                GameLog.info(base.getName(), "follows the build plan", plan);
+                base.setBuildPlan(plan);
+            }
         }
+        col1.getMetrics().register();
+        col2.getMetrics().register();
+        String journalFile = System.getProperty("warkcraft.journal");
+        Journal journal = null;
+        if(journalFile != null) {
+            journal = new Journal(Path.of(journalFile), clock, List.of(col1.getName(), col2.getName()));
+            match.setJournal(journal);
+        }
+        if(snapshot != null && !match.playUntil(Long.getLong("warkcraft.snapshot.at", 10000))) {
+            GameSnapshot.write(match, Path.of(snapshot));
+            GameLog.info(null, "Snapshot written to", snapshot);
+        }
+
+        match.play();
+        if(journal != null)
+            journal.close();
+        GameLog.info(null, col1.getMetrics().snapshot().toString());
+        GameLog.info(null, col2.getMetrics().snapshot().toString());
+        col1.getMetrics().unregister();
+        col2.getMetrics().unregister();
+        GameLog.flush();
+    }
 
+    /**
+     * Creates the clock driving the simulation.
+     *
+     * @param mode "realtime" to wait the actual time, "discrete" to run in virtual time
+     * @return The clock
+     */
+    static SimulationClock createClock(String mode){
+        return switch (mode) {
+            case "realtime" -> new RealTimeClock();
+            case "discrete" -> new DiscreteEventClock();
+            default -> throw new IllegalArgumentException("Unknown clock mode: " + mode);
+        };
     }
 }
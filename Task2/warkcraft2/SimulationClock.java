@@ -0,0 +1,49 @@
+package warkcraft2;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * Source of time for the whole simulation.
+ * Every timed action (harvesting, building, training, attacking) is scheduled
+ * through the clock instead of sleeping on the calling thread, so the same game
+ * logic can run either in real time or in virtual time.
+ */
+public interface SimulationClock {
+
+    /**
+     * @return Milliseconds elapsed since the simulation started
+     */
+    long now();
+
+    /**
+     * Runs the action once the given amount of time has passed.
+     *
+     * @param delay Delay in milliseconds
+     * @param action The action to run
+     */
+    void schedule(long delay, Runnable action);
+
+    /**
+     * Runs the action on the given executor once the given amount of time has passed.
+     * Clocks working in virtual time may ignore the executor and run the action themselves.
+     *
+     * @param delay Delay in milliseconds
+     * @param action The action to run
+     * @param executor The executor running the action
+     */
+    void schedule(long delay, Runnable action, Executor executor);
+
+    /**
+     * Drives the simulation until the given future is completed.
+     *
+     * @param done Future signalling the end of the simulation
+     */
+    void runUntil(Future<?> done);
+
+    /**
+     * Releases the resources (threads) held by the clock.
+     */
+    void shutdown();
+
+}
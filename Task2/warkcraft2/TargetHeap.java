@@ -0,0 +1,150 @@
+package warkcraft2;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary heap over the units of an army, ordered by how good a target they are.
+ * Every unit knows its slot in the heap, so when its health changes it is moved to its new
+ * place in O(log n), and a dead unit is removed in O(log n); the best target is always at the top.
+ *
+ * The keys are cached in the heap and only re-read when a unit is added or updated, so the heap stays
+ * consistent while other threads change the health of units that are not updated yet.
+ * Every operation holds the lock of the heap, each army has its own.
+ */
+public class TargetHeap {
+
+    /**
+     * What the heap orders the units by.
+     */
+    public enum Key {
+        /**
+         * Lowest health first.
+         */
+        HEALTH,
+        /**
+         * Highest threat first: the strongest attack, footmen before peasants with the same attack.
+         */
+        THREAT;
+
+        long of(Personnel unit){
+            return switch (this) {
+                case HEALTH -> unit.getHealth();
+                case THREAT -> -((long) (unit.getAttackMin() + unit.getAttackMax()) * UnitType.values().length + unit.getUnitType().ordinal());
+            };
+        }
+    }
+
+    private final Key key;
+    private Personnel[] units = new Personnel[16];
+    private long[] keys = new long[16];
+    private int size;
+
+    public TargetHeap(Key key){
+        this.key = key;
+    }
+
+    public synchronized void add(Personnel unit){
+        if(getSlot(unit) >= 0)
+            return;
+        if(size == units.length) {
+            units = Arrays.copyOf(units, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        place(unit, key.of(unit), size);
+        size++;
+        siftUp(size - 1);
+    }
+
+    public synchronized void remove(Personnel unit){
+        int slot = getSlot(unit);
+        if(slot < 0)
+            return;
+        setSlot(unit, -1);
+        size--;
+        if(slot == size) {
+            units[size] = null;
+            return;
+        }
+        Personnel last = units[size];
+        long lastKey = keys[size];
+        units[size] = null;
+        place(last, lastKey, slot);
+        if(!siftUp(slot))
+            siftDown(slot);
+    }
+
+    /**
+     * Moves the unit to its place after its key has changed.
+     *
+     * @param unit Unit of the heap
+     */
+    public synchronized void update(Personnel unit){
+        int slot = getSlot(unit);
+        if(slot < 0)
+            return;
+        keys[slot] = key.of(unit);
+        if(!siftUp(slot))
+            siftDown(slot);
+    }
+
+    /**
+     * @return The best target, null if the heap is empty
+     */
+    public synchronized Personnel peek(){
+        return size == 0 ? null : units[0];
+    }
+
+    public synchronized int size(){
+        return size;
+    }
+
+    private boolean siftUp(int slot){
+        int start = slot;
+        Personnel unit = units[slot];
+        long unitKey = keys[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if(keys[parent] <= unitKey)
+                break;
+            place(units[parent], keys[parent], slot);
+            slot = parent;
+        }
+        place(unit, unitKey, slot);
+        return slot != start;
+    }
+
+    private void siftDown(int slot){
+        Personnel unit = units[slot];
+        long unitKey = keys[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if(right < size && keys[right] < keys[child])
+                child = right;
+            if(unitKey <= keys[child])
+                break;
+            place(units[child], keys[child], slot);
+            slot = child;
+        }
+        place(unit, unitKey, slot);
+    }
+
+    private void place(Personnel unit, long unitKey, int slot){
+        units[slot] = unit;
+        keys[slot] = unitKey;
+        setSlot(unit, slot);
+    }
+
+    private int getSlot(Personnel unit){
+        return key == Key.HEALTH ? unit.getHealthSlot() : unit.getThreatSlot();
+    }
+
+    private void setSlot(Personnel unit, int slot){
+        if(key == Key.HEALTH)
+            unit.setHealthSlot(slot);
+        else
+            unit.setThreatSlot(slot);
+    }
+
+}
@@ -0,0 +1,130 @@
+package warkcraft2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.random.RandomGenerator;
+
+/**
+ * How the soldiers of a base choose their next opponent when the previous one has died.
+ * The ordered strategies read the top of the enemies' {@link TargetHeap}s, so a pick costs
+ * one look per enemy base instead of a scan over the enemy armies.
+ */
+public enum TargetingStrategy {
+    /**
+     * Any living enemy unit, each of them equally likely.
+     */
+    RANDOM,
+    /**
+     * The enemy unit with the lowest health.
+     */
+    LOWEST_HEALTH,
+    /**
+     * The enemy unit with the strongest attack.
+     */
+    HIGHEST_THREAT,
+    /**
+     * Every soldier of the base attacks the same enemy unit until it dies, then the one with the lowest health.
+     */
+    FOCUS_FIRE;
+
+    /**
+     * @param name Name of the strategy, case-insensitive, e.g. "lowest_health"
+     * @return The strategy
+     */
+    public static TargetingStrategy of(String name){
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Creates the opponents of the soldiers of one base.
+     * Each call gives a new set of opponents, e.g. focus fire has one focus per attacking base.
+     *
+     * @param enemies The enemy bases
+     * @return The opponents
+     */
+    public Opponents opponents(List<Base> enemies){
+        if(this == RANDOM)
+            return random(enemies);
+        TargetHeap.Key key = this == HIGHEST_THREAT ? TargetHeap.Key.THREAT : TargetHeap.Key.HEALTH;
+        List<TargetHeap> heaps = new ArrayList<>(enemies.size());
+        for (Base enemy : enemies) {
+            heaps.add(enemy.getTargets(key));
+        }
+        if(this != FOCUS_FIRE)
+            return random -> best(heaps, key, random);
+        AtomicReference<Personnel> focus = new AtomicReference<>();
+        return random -> {
+            Personnel current = focus.get();
+            while (current == null || current.getHealth() <= 0) {
+                Personnel next = best(heaps, key, random);
+                if(next == null || focus.compareAndSet(current, next))
+                    return next;
+                current = focus.get();
+            }
+            return current;
+        };
+    }
+
+    private static Opponents random(List<Base> enemies){
+        List<Roster<Personnel>> armies = new ArrayList<>(enemies.size());
+        for (Base enemy : enemies) {
+            armies.add(enemy.getArmy());
+        }
+        if(armies.size() == 1)
+            return armies.get(0)::pickRandom;
+        return random -> pick(armies, random);
+    }
+
+    /**
+     * Picks a unit of the enemy armies, every living enemy unit is equally likely.
+     * The armies can shrink while the unit is picked, then the pick is retried.
+     */
+    private static Personnel pick(List<Roster<Personnel>> armies, RandomGenerator random){
+        while (true) {
+            int total = 0;
+            for (Roster<Personnel> army : armies) {
+                total += army.size();
+            }
+            if(total == 0)
+                return null;
+            int index = random.nextInt(total);
+            for (Roster<Personnel> army : armies) {
+                int size = army.size();
+                if(index < size) {
+                    Personnel picked = army.pickRandom(random);
+                    if(picked != null)
+                        return picked;
+                    break;
+                }
+                index -= size;
+            }
+        }
+    }
+
+    /**
+     * Picks the best of the tops of the enemy heaps, a tie between enemy bases is broken
+     * by the attacker's random stream, so no base is always attacked first.
+     */
+    private static Personnel best(List<TargetHeap> heaps, TargetHeap.Key key, RandomGenerator random){
+        Personnel best = null;
+        long bestKey = 0;
+        int ties = 0;
+        for (TargetHeap heap : heaps) {
+            Personnel top = heap.peek();
+            if(top == null)
+                continue;
+            long topKey = key.of(top);
+            if(best == null || topKey < bestKey) {
+                best = top;
+                bestKey = topKey;
+                ties = 1;
+            } else if(topKey == bestKey && random.nextInt(++ties) == 0) {
+                best = top;
+            }
+        }
+        return best;
+    }
+
+}
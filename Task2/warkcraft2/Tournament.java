@@ -0,0 +1,173 @@
+package warkcraft2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless batch of independent Horde vs Allience matches, used to evaluate balance changes.
+ * Every match runs on its own discrete event clock, the matches are played at the same time
+ * on a bounded pool, and their outcomes are aggregated into a report.
+ *
+ * The number of matches and threads are taken from the warkcraft.tournament.matches and
+ * warkcraft.tournament.threads system properties, the event log is off unless warkcraft.log is set.
+ */
+public class Tournament {
+
+    private static final String FIRST = "Horde";
+    private static final String SECOND = "Allience";
+
+    public static void main(String[] args){
+        int matches = Integer.getInteger("warkcraft.tournament.matches", 1000);
+        int threads = Integer.getInteger("warkcraft.tournament.threads", Runtime.getRuntime().availableProcessors());
+        String battleMode = System.getProperty("warkcraft.battle", "threaded");
+        long seed = Long.getLong("warkcraft.seed", System.nanoTime());
+        if(System.getProperty("warkcraft.log") == null)
+            GameLog.setLevel(GameLog.Level.OFF);
+
+        long start = System.nanoTime();
+        Report report = run(matches, threads, battleMode, seed);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("Seed: " + seed);
+        System.out.println(report);
+        System.out.println("Played in " + elapsed + " ms on " + threads + " threads");
+        GameLog.flush();
+    }
+
+    /**
+     * Plays the given number of matches and aggregates their outcomes.
+     * The seed of every match is derived from the tournament's seed in the order of the matches,
+     * so the same seed gives the same report on any number of threads.
+     *
+     * @param matches Number of matches
+     * @param threads Number of matches played at the same time
+     * @param battleMode Battle mode of the matches, see {@link Match}
+     * @param seed Seed of the tournament
+     * @return The aggregated outcomes
+     */
+    public static Report run(int matches, int threads, String battleMode, long seed){
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Future<Match.Result>> results = new ArrayList<>(matches);
+        for (int i = 0; i < matches; i++) {
+            long matchSeed = seeds.nextLong();
+            results.add(pool.submit(() ->
+                    new Match(FIRST, SECOND, new DiscreteEventClock(), ExecutionMode.PLATFORM, battleMode, matchSeed).play()));
+        }
+
+        Report report = new Report();
+        try {
+            for (Future<Match.Result> result : results) {
+                try {
+                    report.add(result.get());
+                } catch (ExecutionException e) {
+                    report.addFailure(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        return report;
+    }
+
+    /**
+     * Win rates, match durations and final army sizes of a tournament.
+     */
+    public static final class Report {
+        private int firstWins;
+        private int secondWins;
+        private int draws;
+        private int failures;
+        private Throwable firstFailure;
+        private final LongSummaryStatistics duration = new LongSummaryStatistics();
+        private final LongSummaryStatistics firstArmy = new LongSummaryStatistics();
+        private final LongSummaryStatistics secondArmy = new LongSummaryStatistics();
+
+        private void add(Match.Result result){
+            if(FIRST.equals(result.getWinner()))
+                firstWins++;
+            else if(SECOND.equals(result.getWinner()))
+                secondWins++;
+            else
+                draws++;
+            duration.accept(result.getDuration());
+            firstArmy.accept(result.getFirstArmy());
+            secondArmy.accept(result.getSecondArmy());
+        }
+
+        private void addFailure(Throwable cause){
+            failures++;
+            if(firstFailure == null)
+                firstFailure = cause;
+        }
+
+        /**
+         * @return Number of matches played to the end
+         */
+        public int getPlayed(){
+            return firstWins + secondWins + draws;
+        }
+
+        public int getFirstWins(){
+            return firstWins;
+        }
+
+        public int getSecondWins(){
+            return secondWins;
+        }
+
+        public int getDraws(){
+            return draws;
+        }
+
+        /**
+         * @return Number of matches that ended with an exception
+         */
+        public int getFailures(){
+            return failures;
+        }
+
+        public LongSummaryStatistics getDuration(){
+            return duration;
+        }
+
+        /**
+         * @return Surviving units of the first base at the end of the matches
+         */
+        public LongSummaryStatistics getFirstArmy(){
+            return firstArmy;
+        }
+
+        /**
+         * @return Surviving units of the second base at the end of the matches
+         */
+        public LongSummaryStatistics getSecondArmy(){
+            return secondArmy;
+        }
+
+        @Override
+        public String toString(){
+            int played = Math.max(getPlayed(), 1);
+            StringBuilder sb = new StringBuilder();
+            sb.append("Matches: ").append(getPlayed()).append(", failed: ").append(failures).append(System.lineSeparator());
+            sb.append(String.format("%s wins: %d (%.1f%%)%n", FIRST, firstWins, 100.0 * firstWins / played));
+            sb.append(String.format("%s wins: %d (%.1f%%)%n", SECOND, secondWins, 100.0 * secondWins / played));
+            sb.append(String.format("Draws: %d (%.1f%%)%n", draws, 100.0 * draws / played));
+            sb.append(String.format("Duration: mean %.0f ms, min %d ms, max %d ms%n", duration.getAverage(), duration.getMin(), duration.getMax()));
+            sb.append(String.format("%s army: mean %.2f, max %d%n", FIRST, firstArmy.getAverage(), firstArmy.getMax()));
+            sb.append(String.format("%s army: mean %.2f, max %d", SECOND, secondArmy.getAverage(), secondArmy.getMax()));
+            if(firstFailure != null)
+                sb.append(System.lineSeparator()).append("First failure: ").append(firstFailure);
+            return sb.toString();
+        }
+    }
+
+}
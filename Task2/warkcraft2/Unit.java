@@ -1,7 +1,5 @@
 package warkcraft2;
 
-import java.util.concurrent.TimeUnit;
-
 public abstract class Unit {
     private final Base owner;
     private final UnitType unitType;
@@ -19,11 +17,14 @@ public abstract class Unit {
         return unitType;
     }
 
-    protected static void sleepForMsec(int sleepTime) {
-        try {
-            TimeUnit.MILLISECONDS.sleep(sleepTime);
-        } catch (InterruptedException e) {
-        }
+    /**
+     * Runs an activity of the unit after the given delay in its base's activity scope.
+     *
+     * @param delay Delay in milliseconds
+     * @param activity The activity to run
+     */
+    protected void schedule(long delay, Runnable activity){
+        owner.schedule(delay, activity);
     }
 
 }
@@ -0,0 +1,107 @@
+package warkcraft2;
+
+/**
+ * Storage of the combatants of a {@link MassBattle}.
+ * Every combatant is addressed by an integer handle, the handles are given out in order from 0.
+ * Besides the stats of the combatant it holds the state of the battle: the health, the damage
+ * taken in the current round, the current target and the flags.
+ *
+ * Health, damage and flags can be changed atomically, so the attacks of a round can be
+ * computed on several threads at the same time.
+ */
+public interface UnitStorage extends AutoCloseable {
+
+    /**
+     * Flag of a combatant whose death has already been counted
+     */
+    int FALLEN = 1;
+
+    /**
+     * Creates a storage.
+     *
+     * @param kind "heap" to keep the combatants in arrays, "offheap" to keep them in off-heap memory
+     * @param capacity Number of combatants the storage holds before it has to grow
+     * @return The storage
+     */
+    static UnitStorage create(String kind, int capacity){
+        return switch (kind) {
+            case "heap" -> new HeapUnitStorage(capacity);
+            case "offheap" -> new OffHeapUnitStorage(capacity);
+            default -> throw new IllegalArgumentException("Unknown unit storage: " + kind);
+        };
+    }
+
+    /**
+     * Adds a combatant with no damage, no target and no flags.
+     *
+     * @param side Side of the combatant
+     * @param health Health of the combatant
+     * @param attackMin Minimum attack
+     * @param attackMax Attack range
+     * @return Handle of the combatant
+     */
+    int add(int side, int health, int attackMin, int attackMax);
+
+    /**
+     * @return Number of combatants added
+     */
+    int size();
+
+    int getSide(int unit);
+
+    int getAttackMin(int unit);
+
+    int getAttackMax(int unit);
+
+    int getHealth(int unit);
+
+    /**
+     * Atomically adds to the health of a combatant.
+     *
+     * @param unit Handle of the combatant
+     * @param delta Change of the health
+     * @return Health before the change
+     */
+    int getAndAddHealth(int unit, int delta);
+
+    /**
+     * Adds to the damage taken in the current round, when only one thread adds damage.
+     */
+    void addDamage(int unit, int amount);
+
+    /**
+     * Atomically adds to the damage taken in the current round.
+     */
+    void addDamageAtomically(int unit, int amount);
+
+    /**
+     * Resets the damage taken in the current round.
+     *
+     * @param unit Handle of the combatant
+     * @return Damage taken before the reset
+     */
+    int takeDamage(int unit);
+
+    int getTarget(int unit);
+
+    void setTarget(int unit, int target);
+
+    int getFlags(int unit);
+
+    /**
+     * Atomically sets a flag of a combatant.
+     *
+     * @param unit Handle of the combatant
+     * @param flag The flag
+     * @return true, if this call set the flag, false if it was already set
+     */
+    boolean setFlag(int unit, int flag);
+
+    /**
+     * Lets the memory of the storage be released, it can't be used afterwards.
+     */
+    @Override
+    default void close(){
+    }
+
+}
@@ -0,0 +1,176 @@
+package warkcraft2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A game of any number of bases, each of them fighting for a team: every base on its own
+ * team is a free-for-all, fewer teams than bases make allied bases fight together.
+ *
+ * The war starts once every base has finished its preparation and assembled its army; from then on
+ * each soldier picks its opponents from the armies of every other team. A base is out when its army
+ * is wiped out, a team when all of its bases are, and the war is over when at most one team is left.
+ * The bases and teams still in the war are only tracked with atomic counters, there is no lock over the war.
+ */
+public class War {
+
+    private final SimulationClock clock;
+    private final List<Base> bases;
+    private final int[] teams;
+    private TargetingStrategy targeting = TargetingStrategy.RANDOM;
+    private final AtomicInteger[] basesLeft;
+    private final AtomicInteger teamsLeft = new AtomicInteger(0);
+    // index of the winning team, -1 if every army is wiped out
+    private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+    /**
+     * @param clock Clock driving the war, shared by every base
+     * @param bases The bases taking part
+     * @param teams Team of every base, between 0 and the number of teams - 1
+     */
+    public War(SimulationClock clock, List<Base> bases, int[] teams){
+        if(bases.size() != teams.length)
+            throw new IllegalArgumentException("Every base needs a team");
+        this.clock = clock;
+        this.bases = List.copyOf(bases);
+        this.teams = teams.clone();
+        int teamCount = 0;
+        for (int team : teams) {
+            teamCount = Math.max(teamCount, team + 1);
+        }
+        this.basesLeft = new AtomicInteger[teamCount];
+        for (int team = 0; team < teamCount; team++) {
+            basesLeft[team] = new AtomicInteger(0);
+        }
+        for (int team : teams) {
+            if(basesLeft[team].getAndIncrement() == 0)
+                teamsLeft.incrementAndGet();
+        }
+    }
+
+    /**
+     * Creates the bases of a war in virtual or real time, the bases are assigned to the teams in turn.
+     *
+     * @param clock Clock driving the war
+     * @param executionMode How the activities of the bases are executed
+     * @param factions Number of bases
+     * @param teamCount Number of teams, at least 2 and at most the number of bases, the same as the number of bases for a free-for-all
+     * @param seed Seed of every random number of the war
+     * @return The war
+     * @throws IllegalArgumentException if the team count isn't between 2 and the number of bases
+     */
+    public static War create(SimulationClock clock, ExecutionMode executionMode, int factions, int teamCount, long seed){
+        if(teamCount < 2 || teamCount > factions)
+            throw new IllegalArgumentException("Team count must be between 2 and " + factions + ": " + teamCount);
+        SplittableRandom seeds = new SplittableRandom(seed);
+        List<Base> bases = new ArrayList<>(factions);
+        int[] teams = new int[factions];
+        for (int i = 0; i < factions; i++) {
+            bases.add(new Base("Faction-" + (i + 1), clock, executionMode, seeds.nextLong()));
+            teams[i] = i % teamCount;
+        }
+        return new War(clock, bases, teams);
+    }
+
+    /**
+     * Prepares every base, then fights the war until at most one team is left,
+     * then stops the clock and closes the bases.
+     *
+     * @return Index of the winning team, -1 if every army is wiped out
+     */
+    public int play(){
+        CompletableFuture<?>[] ready = new CompletableFuture<?>[bases.size()];
+        for (int i = 0; i < ready.length; i++) {
+            Base base = bases.get(i);
+            ready[i] = base.startPreparation().thenRun(base::assembleArmy);
+        }
+        // every army is sent to war from the same action, once all of them are ready
+        CompletableFuture<Integer> war = CompletableFuture.allOf(ready).thenCompose(all -> start());
+        try {
+            clock.runUntil(war);
+        } finally {
+            clock.shutdown();
+            for (Base base : bases) {
+                base.close();
+            }
+        }
+        int winner = war.join();
+        if(winner < 0)
+            GameLog.info(null, "Every army has been wiped out");
+        else
+            GameLog.info("Team " + (winner + 1), "has won the war");
+        return winner;
+    }
+
+    /**
+     * Sends every army to war against the armies of the other teams.
+     *
+     * @return Future completed with the index of the winning team, -1 if every army is wiped out
+     */
+    public CompletableFuture<Integer> start(){
+        for (int i = 0; i < bases.size(); i++) {
+            Base base = bases.get(i);
+            int team = teams[i];
+            base.goToWar(enemiesOf(team)).thenRun(() -> {
+                if(base.getArmy().isEmpty())
+                    eliminated(team);
+            });
+        }
+        return result;
+    }
+
+    public List<Base> getBases(){
+        return bases;
+    }
+
+    public int getTeam(int base){
+        return teams[base];
+    }
+
+    /**
+     * @param team Index of the team
+     * @return Number of the team's bases with an army left
+     */
+    public int getBasesLeft(int team){
+        return basesLeft[team].get();
+    }
+
+    /**
+     * @param targeting How the soldiers of every base choose their opponents, random by default
+     */
+    public void setTargeting(TargetingStrategy targeting){
+        this.targeting = targeting;
+    }
+
+    private Opponents enemiesOf(int team){
+        List<Base> enemies = new ArrayList<>();
+        for (int i = 0; i < bases.size(); i++) {
+            if(teams[i] != team)
+                enemies.add(bases.get(i));
+        }
+        return targeting.opponents(enemies);
+    }
+
+    private void eliminated(int team){
+        if(basesLeft[team].decrementAndGet() == 0 && teamsLeft.decrementAndGet() <= 1)
+            finish();
+    }
+
+    private void finish(){
+        int winner = -1;
+        for (int team = 0; team < basesLeft.length; team++) {
+            if(basesLeft[team].get() > 0)
+                winner = team;
+        }
+        // the survivors have no enemy left, their fight is over too
+        for (Base base : bases) {
+            if(!base.getArmy().isEmpty())
+                base.signalEnemyDefeated();
+        }
+        result.complete(winner);
+    }
+
+}
@@ -0,0 +1,80 @@
+package warkcraft2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import warkcraft2.Base;
+import warkcraft2.Building;
+import warkcraft2.DiscreteEventClock;
+import warkcraft2.ExecutionMode;
+import warkcraft2.Peasant;
+import warkcraft2.PeasantPool;
+import warkcraft2.UnitType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The questions the preparation of a base asks over and over:
+ * whether it has enough buildings of a type, and which peasant is free for a job.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaseBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int units;
+
+    private Base base;
+    private PeasantPool idlePeasants;
+
+    @Setup
+    public void setUp(){
+        base = new Base("Benchmark", new DiscreteEventClock(), ExecutionMode.POOL);
+        for (int i = 0; i < units; i++) {
+            base.getBuildings().add(Building.createBuilding(i % 2 == 0 ? UnitType.FARM : UnitType.LUMBERMILL, base));
+        }
+        idlePeasants = new PeasantPool();
+        for (int i = 0; i < units; i++) {
+            idlePeasants.release(Peasant.createPeasant(base));
+        }
+    }
+
+    @TearDown
+    public void tearDown(){
+        base.close();
+    }
+
+    @Benchmark
+    public boolean hasEnoughBuilding(){
+        return base.getBuildings().hasAtLeast(UnitType.BARRACKS, 1);
+    }
+
+    @Benchmark
+    public int countBuildings(){
+        return base.getBuildings().count(UnitType.FARM);
+    }
+
+    /**
+     * Claiming a free peasant and giving it back, what used to be getFreePeasant.
+     */
+    @Benchmark
+    public Peasant getFreePeasant(){
+        Peasant peasant = idlePeasants.tryAcquire();
+        idlePeasants.release(peasant);
+        return peasant;
+    }
+
+}
@@ -0,0 +1,80 @@
+package warkcraft2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import warkcraft2.Base;
+import warkcraft2.DiscreteEventClock;
+import warkcraft2.ExecutionMode;
+import warkcraft2.Footman;
+import warkcraft2.MassBattle;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full war between two armies of footmen, fought with scheduled attacks
+ * in virtual time and with the MassBattle engine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BattleBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int armySize;
+
+    private DiscreteEventClock clock;
+    private Base horde;
+    private Base allience;
+
+    @Setup(Level.Invocation)
+    public void setUp(){
+        clock = new DiscreteEventClock();
+        horde = createBase("Horde");
+        allience = createBase("Allience");
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown(){
+        clock.shutdown();
+        horde.close();
+        allience.close();
+    }
+
+    @Benchmark
+    public boolean goToWar(){
+        CompletableFuture<Void> war = CompletableFuture.allOf(horde.goToWar(allience.getArmy()), allience.goToWar(horde.getArmy()));
+        clock.runUntil(war);
+        return horde.getArmy().isEmpty();
+    }
+
+    @Benchmark
+    public boolean massBattle(){
+        MassBattle.fight(horde, allience, 42);
+        return horde.getArmy().isEmpty();
+    }
+
+    private Base createBase(String name){
+        // no starter peasants, their harvesting would be measured with the war
+        Base base = Base.createEmptyBase(name, clock, ExecutionMode.POOL, name.hashCode());
+        for (int i = 0; i < armySize; i++) {
+            base.getArmy().add(Footman.createFootman(base));
+        }
+        return base;
+    }
+
+}
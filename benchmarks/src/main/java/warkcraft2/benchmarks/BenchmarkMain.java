@@ -0,0 +1,54 @@
+package warkcraft2.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the whole benchmark suite and writes the results as JSON, one file per run,
+ * so they can be compared between versions.
+ * The resource benchmarks are run with 1 to 64 threads.
+ *
+ * Usage: java -jar benchmarks.jar [result directory]
+ * Any other JMH option can be used through org.openjdk.jmh.Main instead.
+ */
+public class BenchmarkMain {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) throws RunnerException {
+        File resultDirectory = new File(args.length > 0 ? args[0] : "benchmark-results");
+        if(!resultDirectory.isDirectory() && !resultDirectory.mkdirs())
+            throw new IllegalStateException("Could not create " + resultDirectory);
+
+        for (int threads : THREAD_COUNTS) {
+            run(new OptionsBuilder()
+                    .include(ResourcesBenchmark.class.getSimpleName())
+                    .threads(threads), new File(resultDirectory, "resources-" + threads + "-threads.json"));
+        }
+        run(new OptionsBuilder()
+                .include(BaseBenchmark.class.getSimpleName())
+                .include(RosterBenchmark.class.getSimpleName())
+                .include(TargetingBenchmark.class.getSimpleName())
+                .include(BattleBenchmark.class.getSimpleName())
+                .include(EstimatorBenchmark.class.getSimpleName()), new File(resultDirectory, "benchmarks.json"));
+        run(new OptionsBuilder()
+                .include(UnitStorageBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class), new File(resultDirectory, "unit-storage.json"));
+    }
+
+    private static void run(ChainedOptionsBuilder options, File result) throws RunnerException {
+        Options built = options
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.getPath())
+                .build();
+        new Runner(built).run();
+    }
+
+}
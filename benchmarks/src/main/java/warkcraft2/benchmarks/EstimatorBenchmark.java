@@ -0,0 +1,42 @@
+package warkcraft2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import warkcraft2.BattleEstimator;
+import warkcraft2.UnitType;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimates per second of an even and of a lopsided war, with the default precision.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EstimatorBenchmark {
+
+    private final BattleEstimator estimator = new BattleEstimator();
+    private long seed = 0;
+
+    @Benchmark
+    public BattleEstimator.Estimate even(){
+        return estimator.estimate(Map.of(UnitType.PEASANT, 10), Map.of(UnitType.PEASANT, 10), seed++);
+    }
+
+    @Benchmark
+    public BattleEstimator.Estimate lopsided(){
+        return estimator.estimate(Map.of(UnitType.PEASANT, 15), Map.of(UnitType.FOOTMAN, 5), seed++);
+    }
+
+}
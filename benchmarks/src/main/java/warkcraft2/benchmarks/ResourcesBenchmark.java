@@ -0,0 +1,82 @@
+package warkcraft2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import warkcraft2.Resources;
+import warkcraft2.UnitType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resources of one base shared by every benchmark thread:
+ * harvest income, resource checks and the reservations used by building and training.
+ * Run it with different thread counts (-t) to see the contention, {@link BenchmarkMain} does that.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourcesBenchmark {
+
+    private Resources resources;
+
+    @Setup
+    public void setUp(){
+        resources = new Resources();
+        resources.addGold(1_000_000);
+        resources.addWood(1_000_000);
+        resources.flushIncome();
+    }
+
+    @Benchmark
+    public void addGold(){
+        resources.addGold(10);
+    }
+
+    @Benchmark
+    public boolean canTrain(){
+        return resources.canTrain(UnitType.PEASANT.goldCost, UnitType.PEASANT.woodCost, UnitType.PEASANT.foodCost);
+    }
+
+    @Benchmark
+    public void removeCost(){
+        resources.removeCost(1, 1);
+        resources.addGold(1);
+        resources.addWood(1);
+    }
+
+    /**
+     * The path of training a peasant: reserve gold, wood and food, then give them back.
+     */
+    @Benchmark
+    public boolean reserveTraining(){
+        Resources.Reservation reservation = resources.reserve(UnitType.PEASANT.goldCost, UnitType.PEASANT.woodCost, UnitType.PEASANT.foodCost);
+        if(reservation == null)
+            return false;
+        reservation.rollback();
+        return true;
+    }
+
+    /**
+     * The path of constructing a building: reserve gold and wood, then give them back.
+     */
+    @Benchmark
+    public boolean reserveBuilding(){
+        Resources.Reservation reservation = resources.reserve(UnitType.BARRACKS.goldCost, UnitType.BARRACKS.woodCost, 0);
+        if(reservation == null)
+            return false;
+        reservation.rollback();
+        return true;
+    }
+
+}
@@ -0,0 +1,73 @@
+package warkcraft2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import warkcraft2.Base;
+import warkcraft2.DiscreteEventClock;
+import warkcraft2.ExecutionMode;
+import warkcraft2.Footman;
+import warkcraft2.Personnel;
+import warkcraft2.Roster;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picking random opponents from an army and removing the fallen ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RosterBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int units;
+
+    private final Random random = new Random(42);
+    private Base base;
+    private Roster<Personnel> army;
+
+    @Setup
+    public void setUp(){
+        base = new Base("Benchmark", new DiscreteEventClock(), ExecutionMode.POOL);
+        army = Roster.army();
+        for (int i = 0; i < units; i++) {
+            army.add(Footman.createFootman(base));
+        }
+    }
+
+    @TearDown
+    public void tearDown(){
+        base.close();
+    }
+
+    @Benchmark
+    public Personnel pickRandom(){
+        return army.pickRandom(random);
+    }
+
+    /**
+     * Removes a random unit and puts it back, so the army keeps its size.
+     */
+    @Benchmark
+    public Personnel removeAndAdd(){
+        Personnel unit = army.pickRandom(random);
+        army.remove(unit);
+        army.add(unit);
+        return unit;
+    }
+
+}
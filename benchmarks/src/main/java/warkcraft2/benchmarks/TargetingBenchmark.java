@@ -0,0 +1,80 @@
+package warkcraft2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import warkcraft2.Base;
+import warkcraft2.DiscreteEventClock;
+import warkcraft2.ExecutionMode;
+import warkcraft2.Footman;
+import warkcraft2.GameLog;
+import warkcraft2.Opponents;
+import warkcraft2.Personnel;
+import warkcraft2.TargetHeap;
+import warkcraft2.TargetingStrategy;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picking the weakest opponent and keeping the target heap up to date as units lose health.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TargetingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int units;
+
+    private final Random random = new Random(42);
+    private Base base;
+    private Opponents lowestHealth;
+
+    @Setup
+    public void setUp(){
+        GameLog.setLevel(GameLog.Level.OFF);
+        base = new Base("Benchmark", new DiscreteEventClock(), ExecutionMode.POOL);
+        for (int i = 0; i < units; i++) {
+            base.getArmy().add(Footman.createFootman(base));
+        }
+        base.getTargets(TargetHeap.Key.HEALTH);
+        lowestHealth = TargetingStrategy.LOWEST_HEALTH.opponents(List.of(base));
+    }
+
+    @TearDown
+    public void tearDown(){
+        base.close();
+    }
+
+    @Benchmark
+    public Personnel pickLowestHealth(){
+        return lowestHealth.pick(random);
+    }
+
+    /**
+     * A random unit loses some health and regains it, moving it in the target heap twice.
+     */
+    @Benchmark
+    public Personnel loseHealth(){
+        Personnel unit = base.getArmy().pickRandom(random);
+        int damage = random.nextInt(100);
+        unit.loseHealth(damage);
+        unit.loseHealth(-damage);
+        return unit;
+    }
+
+}
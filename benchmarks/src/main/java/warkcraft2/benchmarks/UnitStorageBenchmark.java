@@ -0,0 +1,62 @@
+package warkcraft2.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import warkcraft2.MassBattle;
+import warkcraft2.UnitStorage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A mass battle of millions of soldiers with the combatants on the heap and off the heap.
+ * Run with the GC profiler to compare the heap use of the two storages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnitStorageBenchmark {
+
+    @Param({"heap", "offheap"})
+    private String storage;
+
+    @Param({"100000", "1000000"})
+    private int armySize;
+
+    private UnitStorage units;
+    private MassBattle battle;
+
+    @Setup(Level.Invocation)
+    public void setUp(){
+        units = UnitStorage.create(storage, armySize * 2);
+        battle = new MassBattle(42, units);
+        for (int i = 0; i < armySize; i++) {
+            battle.addUnit(MassBattle.FIRST, 60, 4, 6);
+            battle.addUnit(MassBattle.SECOND, 60, 4, 6);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown(){
+        units.close();
+    }
+
+    @Benchmark
+    public int massBattle(){
+        return battle.run();
+    }
+
+}
@@ -0,0 +1,68 @@
+package warcraft;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HarvestSchedulerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final Resources resources = new Resources();
+    private final HarvestScheduler scheduler = new HarvestScheduler("Test", resources);
+
+    @AfterEach
+    void tearDown(){
+        scheduler.shutdown();
+    }
+
+    @Test
+    void everyHarvesterIsCreditedOnEveryTick(){
+        int gold = resources.getGold();
+        scheduler.startMining();
+        scheduler.startMining();
+        scheduler.startCuttingWood();
+        assertTimeoutPreemptively(TIMEOUT, () -> resources.changed().await(() -> resources.getWood() >= 30));
+        scheduler.stopMining();
+        scheduler.stopMining();
+        scheduler.stopCuttingWood();
+
+        int wood = resources.getWood();
+        int mined = resources.getGold() - gold;
+        assertEquals(0, wood % 10);
+        assertEquals(0, mined % 20);
+        // a tick credits the gold before the wood, so the gold read later may be a tick ahead
+        assertTrue(mined == 2 * wood || mined == 2 * wood + 20, mined + " gold for " + wood + " wood");
+    }
+
+    @Test
+    void stoppedHarvestersAreNotCredited() throws InterruptedException {
+        scheduler.startMining();
+        scheduler.startCuttingWood();
+        scheduler.stopMining();
+        assertTimeoutPreemptively(TIMEOUT, () -> resources.changed().await(() -> resources.getWood() >= 10));
+        scheduler.stopCuttingWood();
+        int gold = resources.getGold();
+        // a tick running while the lumberjack stopped may still credit it
+        Thread.sleep(150);
+        int wood = resources.getWood();
+        Thread.sleep(300);
+        assertEquals(gold, resources.getGold());
+        assertEquals(wood, resources.getWood());
+    }
+
+    @Test
+    void nothingIsHarvestedAfterTheShutdown() throws InterruptedException {
+        scheduler.startMining();
+        scheduler.shutdown();
+        int gold = resources.getGold();
+        Thread.sleep(300);
+        assertEquals(gold, resources.getGold());
+    }
+
+}
@@ -0,0 +1,47 @@
+package warcraft;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignalTest {
+
+    @Test
+    void waiterWakesUpOnceTheConditionHolds() throws InterruptedException {
+        Signal signal = new Signal();
+        AtomicBoolean ready = new AtomicBoolean(false);
+        CountDownLatch woken = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                signal.await(ready::get);
+                woken.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        // a signal without the change keeps the waiter parked
+        signal.signalAll();
+        assertFalse(woken.await(100, TimeUnit.MILLISECONDS));
+
+        ready.set(true);
+        signal.signalAll();
+        assertTrue(woken.await(10, TimeUnit.SECONDS));
+        waiter.join();
+    }
+
+    @Test
+    void conditionAlreadyHoldingDoesNotWait(){
+        Signal signal = new Signal();
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> signal.await(() -> true));
+    }
+
+}
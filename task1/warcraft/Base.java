@@ -1,10 +1,11 @@
 package warcraft;
 
+import warkcraft2.ExecutionMode;
+
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -23,12 +24,18 @@ public class Base {
     private final String name;
     private final Resources resources = new Resources();
     private final List<Peasant> peasants = Collections.synchronizedList(new LinkedList<>());
-    private final List<Building> buildings = Collections.synchronizedList(new LinkedList<>());
+    private final BuildingRegistry buildings = new BuildingRegistry();
+    // fired when a peasant is added or becomes free
+    private final Signal peasantsChanged = new Signal();
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()*4);
+    private final ExecutorService executorService;
+    // delivers the harvest of all the harvesting peasants from one thread
+    private final HarvestScheduler harvestScheduler;
 
-    public Base(String name){
+    public Base(String name, ExecutionMode executionMode){
         this.name = name;
+        this.executorService = executionMode.newExecutor(name);
+        this.harvestScheduler = new HarvestScheduler(name, resources);
         for(int i = 0; i < STARTER_PEASANT_NUMBER; i++) {
             Peasant peasant = createPeasant();
             if(i < 3 && peasant != null)
@@ -51,25 +58,12 @@ public class Base {
 
         executorService.execute(this::peasantThread);
 
-        boolean farms = hasEnoughBuilding(UnitType.FARM, 3);
-        boolean lumbers = hasEnoughBuilding(UnitType.LUMBERMILL, 1);
-        boolean smiths = hasEnoughBuilding(UnitType.BLACKSMITH, 1);
-        while(!farms && !lumbers && !smiths)
-        {
-            farms = hasEnoughBuilding(UnitType.FARM, 3);
-            lumbers = hasEnoughBuilding(UnitType.LUMBERMILL, 1);
-            smiths = hasEnoughBuilding(UnitType.BLACKSMITH, 1);
-            try {
-                TimeUnit.MILLISECONDS.sleep(200);
-            } catch (InterruptedException e) {
-            }
-        }
-
-        while (!(peasants.size() == PEASANT_NUMBER_GOAL) ) {
-            try {
-                TimeUnit.MILLISECONDS.sleep(200);
-            } catch (InterruptedException e) {
-            }
+        try {
+            buildings.completed().await(this::hasRequiredBuildings);
+            peasantsChanged.await(() -> peasants.size() == PEASANT_NUMBER_GOAL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
         }
 
         for(Peasant peasant : peasants) {
@@ -78,54 +72,76 @@ public class Base {
 
         System.out.println(this.name + " finished creating a base");
         System.out.println(this.name + " peasants: " + this.peasants.size());
-        for (int i = 0, buildingsSize = buildings.size(); i < buildingsSize; i++) {
-            Building b = buildings.get(i);
+        for (Building b : buildings) {
             System.out.println(this.name + " has a  " + b.getUnitType().toString());
         }
-        System.exit(0);
     }
 
     private void peasantThread() {
 
         while(peasants.size() < PEASANT_NUMBER_GOAL) {
-            if(resources.getCapacity() + UnitType.PEASANT.foodCost < resources.getCapacityLimit()) {
-                Peasant peasant = Peasant.createPeasant(this);
-                if (numberOfLumberjacks.get() < 1) {
-                    peasant.startCuttingWood();
-                    numberOfLumberjacks.addAndGet(1);
-                } else if (numberOfMiners.get() < 2) {
-                    peasant.startMining();
-                    numberOfMiners.addAndGet(1);
-                }
-                peasants.add(peasant);
+            try {
+                resources.changed().await(() -> resources.getCapacity() + UnitType.PEASANT.foodCost < resources.getCapacityLimit());
+            } catch (InterruptedException e) {
+                return;
+            }
+            Peasant peasant = Peasant.createPeasant(this);
+            if (numberOfLumberjacks.get() < 1) {
+                peasant.startCuttingWood();
+                numberOfLumberjacks.addAndGet(1);
+            } else if (numberOfMiners.get() < 2) {
+                peasant.startMining();
+                numberOfMiners.addAndGet(1);
             }
+            peasants.add(peasant);
+            signalPeasantsChanged();
         }
         System.out.println("\t\tPeasant thread done\n");
     }
 
+    /**
+     * Assigns the missing buildings to free peasants.
+     * Parks until a peasant is freed when there is none, until the resources
+     * are enough when the building can't be started, and until the started building
+     * is registered.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
     private void buildingThread() throws InterruptedException {
-        while(!Thread.interrupted()) {
-            if (!hasEnoughBuilding(UnitType.FARM, 3)) {
-                Peasant peasant = getFreePeasant();
-                if (peasant != null) {
-                    peasant.tryBuilding(UnitType.FARM);
-                }
-            }
-            else if (!hasEnoughBuilding(UnitType.LUMBERMILL, 1)) {
-                Peasant peasant = getFreePeasant();
-                if (peasant != null) {
-                    peasant.tryBuilding(UnitType.LUMBERMILL);
-                }
-            }
-            else if (!hasEnoughBuilding(UnitType.BLACKSMITH, 1)) {
-                Peasant peasant = getFreePeasant();
-                if (peasant != null) {
-                    peasant.tryBuilding(UnitType.BLACKSMITH);
-                }
+        while(!hasRequiredBuildings()) {
+            UnitType buildingType;
+            if (!hasEnoughBuilding(UnitType.FARM, 3))
+                buildingType = UnitType.FARM;
+            else if (!hasEnoughBuilding(UnitType.LUMBERMILL, 1))
+                buildingType = UnitType.LUMBERMILL;
+            else
+                buildingType = UnitType.BLACKSMITH;
+
+            int built = buildings.count(buildingType);
+            Peasant peasant = getFreePeasant();
+            if (peasant == null) {
+                peasantsChanged.await(() -> getFreePeasant() != null);
+            } else if (peasant.tryBuilding(buildingType)) {
+                // the building is registered by the peasant's own thread, don't start it twice
+                buildings.completed().await(() -> buildings.count(buildingType) > built);
+            } else {
+                resources.changed().await(() -> resources.canBuild(buildingType.goldCost, buildingType.woodCost));
             }
         }
     }
 
+    private boolean hasRequiredBuildings(){
+        return hasEnoughBuilding(UnitType.FARM, 3) && hasEnoughBuilding(UnitType.LUMBERMILL, 1)
+                && hasEnoughBuilding(UnitType.BLACKSMITH, 1);
+    }
+
+    /**
+     * Wakes up the threads waiting for a free peasant or for the peasant goal.
+     */
+    public void signalPeasantsChanged(){
+        peasantsChanged.signalAll();
+    }
+
     /**
      * Returns a peasants that is currently free.
      * Being free means that the peasant currently isn't harvesting or building.
@@ -146,27 +162,27 @@ public class Base {
      * A peasant could only be trained if there are sufficient
      * gold, wood and food for him to train.
      *
-     * At one time only one Peasant can be trained.
+     * At one time only one Peasant can be trained, the cost is taken before waiting for the town hall.
      *
      * @return The newly created peasant if it could be trained, null otherwise
      */
     private Peasant createPeasant(){
-        Peasant result;
-        if(resources.canTrain(UnitType.PEASANT.goldCost, UnitType.PEASANT.woodCost, UnitType.PEASANT.foodCost)) {
-            try {
-                if(trainingLock.tryLock() || trainingLock.tryLock(1500, TimeUnit.MILLISECONDS))
-                {
-                    sleepForMsec(UnitType.PEASANT.buildTime);
-                    resources.removeCost(UnitType.PEASANT.goldCost, UnitType.PEASANT.woodCost);
-                    resources.updateCapacity(UnitType.PEASANT.foodCost);
-                    result = Peasant.createPeasant(this);
-                    return result;
-                }
-            } catch (InterruptedException e) {
-            }finally {
-                trainingLock.unlock();
+        if(!resources.take(UnitType.PEASANT.goldCost, UnitType.PEASANT.woodCost, UnitType.PEASANT.foodCost))
+            return null;
+        boolean locked = false;
+        try {
+            locked = trainingLock.tryLock() || trainingLock.tryLock(1500, TimeUnit.MILLISECONDS);
+            if(locked) {
+                sleepForMsec(UnitType.PEASANT.buildTime);
+                return Peasant.createPeasant(this);
             }
+        } catch (InterruptedException e) {
+        } finally {
+            if(locked)
+                trainingLock.unlock();
         }
+        // the town hall stayed busy, the cost is given back
+        resources.giveBack(UnitType.PEASANT.goldCost, UnitType.PEASANT.woodCost, UnitType.PEASANT.foodCost);
         return null;
     }
 
@@ -174,7 +190,11 @@ public class Base {
         return this.resources;
     }
 
-    public List<Building> getBuildings(){
+    public HarvestScheduler getHarvestScheduler(){
+        return this.harvestScheduler;
+    }
+
+    public BuildingRegistry getBuildings(){
         return this.buildings;
     }
 
@@ -182,6 +202,32 @@ public class Base {
         return this.name;
     }
 
+    /**
+     * Runs an activity of the base or one of its peasants according to the base's execution mode.
+     *
+     * @param activity The activity to run
+     */
+    public void execute(Runnable activity){
+        executorService.execute(activity);
+    }
+
+    /**
+     * Stops the harvest and accepting new activities, then waits until the running ones have finished,
+     * so the base can end without stopping the whole JVM.
+     */
+    public void close(){
+        harvestScheduler.shutdown();
+        executorService.shutdown();
+        try {
+            while (!executorService.awaitTermination(1, TimeUnit.SECONDS)) {
+                // keep waiting for the running activities
+            }
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Helper method to determine if a base has the required number of a certain building.
      *
@@ -189,14 +235,8 @@ public class Base {
      * @param required Number of required amount
      * @return true, if required amount is reached (or surpassed), false otherwise
      */
-    private synchronized boolean hasEnoughBuilding(UnitType unitType, int required){
-        int counter = 0;
-        for (int i = 0, buildingsSize = buildings.size(); i < buildingsSize; i++) {
-            Building building = buildings.get(i);
-            if (building.getUnitType() == unitType)
-                counter++;
-        }
-        return counter == required;
+    private boolean hasEnoughBuilding(UnitType unitType, int required){
+        return buildings.hasAtLeast(unitType, required);
     }
 
     private static void sleepForMsec(int sleepTime) {
@@ -0,0 +1,85 @@
+package warcraft;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The buildings of a base, indexed by their type.
+ * Besides keeping the buildings themselves it counts them per type,
+ * so questions like "how many farms are there" are answered without
+ * scanning the buildings or taking a lock.
+ */
+public class BuildingRegistry implements Iterable<Building> {
+
+    private final List<Building> buildings = new CopyOnWriteArrayList<>();
+    // filled up in the constructor and never changed afterwards, only the counters are
+    private final Map<UnitType, AtomicInteger> counts = new EnumMap<>(UnitType.class);
+    private final Signal completed = new Signal();
+
+    public BuildingRegistry(){
+        for (UnitType unitType : UnitType.values()) {
+            counts.put(unitType, new AtomicInteger(0));
+        }
+    }
+
+    public void add(Building building){
+        buildings.add(building);
+        counts.get(building.getUnitType()).incrementAndGet();
+        completed.signalAll();
+    }
+
+    /**
+     * @return Signal fired whenever a building is completed
+     */
+    public Signal completed(){
+        return completed;
+    }
+
+    /**
+     * @param unitType Type of the building
+     * @return Number of buildings of the given type
+     */
+    public int count(UnitType unitType){
+        return counts.get(unitType).get();
+    }
+
+    /**
+     * @param unitType Type of the building
+     * @param required Number of required amount
+     * @return true, if there are at least the required number of buildings of the given type
+     */
+    public boolean hasAtLeast(UnitType unitType, int required){
+        return count(unitType) >= required;
+    }
+
+    /**
+     * @param unitType Type of the building
+     * @param required Number of required amount
+     * @return true, if there are exactly the required number of buildings of the given type
+     */
+    public boolean hasExactly(UnitType unitType, int required){
+        return count(unitType) == required;
+    }
+
+    public int size(){
+        return buildings.size();
+    }
+
+    /**
+     * @return Read-only view of all buildings
+     */
+    public List<Building> asList(){
+        return Collections.unmodifiableList(buildings);
+    }
+
+    @Override
+    public Iterator<Building> iterator(){
+        return asList().iterator();
+    }
+
+}
@@ -0,0 +1,71 @@
+package warcraft;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers the harvest of every harvesting peasant of a base from a single thread.
+ * Instead of every harvester sleeping on a thread of its own, the harvesters are counted
+ * per resource and a periodic tick credits all of them at once, so the number of threads
+ * doesn't grow with the number of peasants.
+ *
+ * A harvester is credited from the first tick after it started, until it stops.
+ */
+public class HarvestScheduler {
+
+    private static final int HARVEST_WAIT_TIME = 100;
+    private static final int HARVEST_AMOUNT = 10;
+
+    private final Resources resources;
+    private final AtomicInteger miners = new AtomicInteger(0);
+    private final AtomicInteger lumberjacks = new AtomicInteger(0);
+    private final ScheduledExecutorService ticker;
+
+    /**
+     * @param name Name of the base, the ticking thread is named after it
+     * @param resources Resources the harvest is delivered to
+     */
+    public HarvestScheduler(String name, Resources resources){
+        this.resources = resources;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, name + "-harvest"));
+        ticker.scheduleAtFixedRate(this::tick, HARVEST_WAIT_TIME, HARVEST_WAIT_TIME, TimeUnit.MILLISECONDS);
+    }
+
+    public void startMining(){
+        miners.incrementAndGet();
+    }
+
+    public void stopMining(){
+        miners.decrementAndGet();
+    }
+
+    public void startCuttingWood(){
+        lumberjacks.incrementAndGet();
+    }
+
+    public void stopCuttingWood(){
+        lumberjacks.decrementAndGet();
+    }
+
+    /**
+     * One harvesting trip of every harvester: HARVEST_AMOUNT per miner and lumberjack.
+     */
+    private void tick(){
+        int mining = miners.get();
+        if(mining > 0)
+            resources.addGold(mining * HARVEST_AMOUNT);
+        int cutting = lumberjacks.get();
+        if(cutting > 0)
+            resources.addWood(cutting * HARVEST_AMOUNT);
+    }
+
+    /**
+     * Stops the ticks, nothing is harvested afterwards.
+     */
+    public void shutdown(){
+        ticker.shutdownNow();
+    }
+
+}
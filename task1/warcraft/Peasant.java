@@ -5,11 +5,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Peasant extends Unit {
 
-    private static final int HARVEST_WAIT_TIME = 100;
-    private static final int HARVEST_AMOUNT = 10;
-
     private AtomicBoolean isHarvesting = new AtomicBoolean(false);
     private AtomicBoolean isBuilding = new AtomicBoolean(false);
+    // what the harvester gathers, so it is taken off the right count when it stops
+    private boolean mining;
 
     private Peasant(Base owner) {
         super(owner, UnitType.PEASANT);
@@ -21,53 +20,43 @@ public class Peasant extends Unit {
 
     /**
      * Starts gathering gold.
+     * The peasant joins the miners of the base's harvest scheduler, no thread is started for it.
      */
-    public void startMining() {
+    public synchronized void startMining() {
         if(isHarvesting.get())
             return;
         System.out.println("Peasant starting mining");
+        mining = true;
         isHarvesting.set(true);
-        new Thread(this::mine).start();
-    }
-
-    private void mine() {
-        try {
-            while(isHarvesting.get()) {
-                TimeUnit.MILLISECONDS.sleep(HARVEST_WAIT_TIME);
-                getOwner().getResources().addGold(HARVEST_AMOUNT);
-            }
-            Thread.currentThread().interrupt();
-        } catch (InterruptedException e) {
-        }
+        getOwner().getHarvestScheduler().startMining();
     }
 
     /**
      * Starts gathering wood.
+     * The peasant joins the lumberjacks of the base's harvest scheduler, no thread is started for it.
      */
-    public void startCuttingWood(){
+    public synchronized void startCuttingWood(){
         if(isHarvesting.get())
             return;
         System.out.println("Peasant starting cutting wood");
+        mining = false;
         isHarvesting.set(true);
-        new Thread(this::cutWood).start();
-    }
-
-    private void cutWood() {
-        try {
-            while(isHarvesting.get()) {
-                TimeUnit.MILLISECONDS.sleep(HARVEST_WAIT_TIME);
-                getOwner().getResources().addWood(HARVEST_AMOUNT);
-            }
-            Thread.currentThread().interrupt();
-        } catch (InterruptedException e) {
-        }
+        getOwner().getHarvestScheduler().startCuttingWood();
     }
 
     /**
      * Peasant should stop all harvesting once this is invoked
      */
     public void stopHarvesting(){
-        this.isHarvesting.set(false);
+        synchronized (this) {
+            if(!this.isHarvesting.getAndSet(false))
+                return;
+            if(mining)
+                getOwner().getHarvestScheduler().stopMining();
+            else
+                getOwner().getHarvestScheduler().stopCuttingWood();
+        }
+        getOwner().signalPeasantsChanged();
     }
 
     /**
@@ -80,33 +69,33 @@ public class Peasant extends Unit {
      *         false, if there are insufficient resources
      */
     public boolean tryBuilding(UnitType buildingType){
-        if(getOwner().getResources().canBuild(buildingType.goldCost, buildingType.woodCost))
-        {
-            new Thread(() -> {
-                isBuilding.set(true);
-                startBuilding(buildingType);
-                isBuilding.set(false);
-            }).start();
-            return true;
+        if(!isBuilding.compareAndSet(false, true))
+            return false;
+        if(!getOwner().getResources().take(buildingType.goldCost, buildingType.woodCost, 0)) {
+            isBuilding.set(false);
+            return false;
         }
-        return false;
+        getOwner().execute(() -> {
+            startBuilding(buildingType);
+            isBuilding.set(false);
+            getOwner().signalPeasantsChanged();
+        });
+        return true;
     }
 
     /**
      * Start building a certain type of building.
-     * Keep in mind that a peasant can only build one building at one time.
+     * Keep in mind that a peasant can only build one building at one time,
+     * tryBuilding makes sure of that through isBuilding, and has already taken the cost.
      *
      * @param buildingType Type of the building
      */
     private void startBuilding(UnitType buildingType){
-        if(!isBuilding.get()) {
-            getOwner().getResources().removeCost(buildingType.goldCost, buildingType.woodCost);
-            var building = Building.createBuilding(buildingType, getOwner());
-            getOwner().getBuildings().add(building);
-            try {
-                TimeUnit.MILLISECONDS.sleep(buildingType.buildTime);
-            } catch (InterruptedException e) {
-            }
+        var building = Building.createBuilding(buildingType, getOwner());
+        getOwner().getBuildings().add(building);
+        try {
+            TimeUnit.MILLISECONDS.sleep(buildingType.buildTime);
+        } catch (InterruptedException e) {
         }
     }
 
@@ -10,6 +10,7 @@ public class Resources {
     private AtomicInteger wood;
     private AtomicInteger capacityLimit;
     private AtomicInteger capacity;
+    private final Signal changed = new Signal();
 
     public Resources(){
         this.gold = new AtomicInteger(UnitType.PEASANT.goldCost * 5);
@@ -23,7 +24,8 @@ public class Resources {
     }
 
     public void addGold(int amount){
-        this.gold.set(this.gold.get() + amount);
+        this.gold.addAndGet(amount);
+        changed.signalAll();
     }
 
     public int getWood(){
@@ -31,7 +33,8 @@ public class Resources {
     }
 
     public void addWood(int amount){
-        this.wood.set(this.wood.get() + amount);
+        this.wood.addAndGet(amount);
+        changed.signalAll();
     }
 
     /**
@@ -58,8 +61,45 @@ public class Resources {
     }
 
     public void removeCost(int gold, int wood){
-        this.gold.set(this.gold.get() - gold);
-        this.wood.set(this.wood.get() - wood);
+        this.gold.addAndGet(-gold);
+        this.wood.addAndGet(-wood);
+        changed.signalAll();
+    }
+
+    /**
+     * Takes the cost of a building or unit if there are enough resources, checking and taking in one atomic step.
+     * Takes are serialized, the other changes only add resources, so the checked amounts can't be spent meanwhile.
+     *
+     * @param goldCost Gold cost of the building or unit
+     * @param woodCost Wood cost of the building or unit
+     * @param foodCost Food cost of the unit, uses the capacity resource
+     * @return True, if the cost was taken, false if there are not enough resources
+     */
+    public synchronized boolean take(int goldCost, int woodCost, int foodCost){
+        if(!canTrain(goldCost, woodCost, foodCost))
+            return false;
+        this.gold.addAndGet(-goldCost);
+        this.wood.addAndGet(-woodCost);
+        this.capacity.addAndGet(foodCost);
+        changed.signalAll();
+        return true;
+    }
+
+    /**
+     * Gives back a cost taken by {@link #take(int, int, int)}, if the building or unit couldn't be started after all.
+     */
+    public void giveBack(int goldCost, int woodCost, int foodCost){
+        this.gold.addAndGet(goldCost);
+        this.wood.addAndGet(woodCost);
+        this.capacity.addAndGet(-foodCost);
+        changed.signalAll();
+    }
+
+    /**
+     * @return Signal fired whenever any of the resources changes
+     */
+    public Signal changed(){
+        return changed;
     }
 
     public int getCapacityLimit(){
@@ -70,7 +110,8 @@ public class Resources {
      * Building a farm increases the capacity limit by 10
      */
     public void farmBuilt(){
-        this.capacityLimit.set(this.capacityLimit.get() + 10);
+        this.capacityLimit.addAndGet(10);
+        changed.signalAll();
     }
 
     public int getCapacity(){
@@ -78,7 +119,8 @@ public class Resources {
     }
 
     public void updateCapacity(int foodCost){
-        this.capacity.set(this.capacity.get() + foodCost);
+        this.capacity.addAndGet(foodCost);
+        changed.signalAll();
     }
 
 }
@@ -0,0 +1,54 @@
+package warcraft;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A condition threads can park on until something relevant changes.
+ * The changing side calls {@link #signalAll()}, which costs a single read
+ * while nobody is waiting.
+ */
+public class Signal {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final AtomicInteger waiting = new AtomicInteger(0);
+
+    /**
+     * Wakes up every thread waiting on this signal, so they check their condition again.
+     * Has to be called after the change has been made.
+     */
+    public void signalAll(){
+        if(waiting.get() == 0)
+            return;
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Parks the current thread until the condition holds.
+     * The condition is checked again every time the signal is fired.
+     *
+     * @param condition The condition to wait for
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void await(BooleanSupplier condition) throws InterruptedException {
+        lock.lock();
+        waiting.incrementAndGet();
+        try {
+            while (!condition.getAsBoolean()) {
+                changed.await();
+            }
+        } finally {
+            waiting.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+}
@@ -1,12 +1,14 @@
 package warcraft;
 
+import warkcraft2.ExecutionMode;
+
 public class Simulation {
 
     public static void main(String[] args){
-        Base col1 = new Base("SuperCoolBase");
-        new Thread(() -> {
-            col1.startPreparation();
-        }).start();
+        ExecutionMode executionMode = ExecutionMode.of(System.getProperty("warkcraft.execution", "platform"));
+        Base col1 = new Base("SuperCoolBase", executionMode);
+        col1.startPreparation();
+        col1.close();
 
     }
 }